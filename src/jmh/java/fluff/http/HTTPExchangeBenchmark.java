@@ -0,0 +1,92 @@
+package fluff.http;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sun.net.httpserver.HttpServer;
+
+import fluff.http.body.HTTPBody;
+import fluff.http.body.HTTPBodyParser;
+
+/**
+ * Measures whole exchanges against an in-process server on the loopback interface,
+ * so the cost of the library shows next to that of the HttpClient.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class HTTPExchangeBenchmark {
+    
+    @Param({"128", "65536"})
+    public int size;
+    
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private HTTP http;
+    private String url;
+    private byte[] body;
+    
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        byte[] response = new byte[size];
+        
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 128);
+        server.createContext("/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(200, response.length);
+            exchange.getResponseBody().write(response);
+            exchange.close();
+        });
+        serverExecutor = Executors.newFixedThreadPool(8);
+        server.setExecutor(serverExecutor);
+        server.start();
+        
+        http = new HTTP();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+        body = new byte[size];
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+    
+    @Benchmark
+    public byte[] get() {
+        return http.GET(url).send().getBody().get(HTTPBodyParser.BYTES);
+    }
+    
+    @Benchmark
+    public byte[] post() {
+        return http.POST(url).setBody(HTTPBody.of(body)).send().getBody().get(HTTPBodyParser.BYTES);
+    }
+    
+    @Benchmark
+    public byte[] getAsync() {
+        return http.GET(url).sendAsync().join().getBody().get(HTTPBodyParser.BYTES);
+    }
+}
@@ -0,0 +1,84 @@
+package fluff.http.body;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fluff.json.JSONObject;
+
+/**
+ * Measures serializing and deserializing bodies with the built-in parsers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HTTPBodyParserBenchmark {
+    
+    @Param({"64", "16384"})
+    public int size;
+    
+    private byte[] bytes;
+    private String string;
+    private byte[] json;
+    private JSONObject jsonObject;
+    
+    @Setup
+    public void setup() throws IOException {
+        bytes = new byte[size];
+        string = "x".repeat(size);
+        
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; sb.length() < size; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("\"key").append(i).append("\":\"value").append(i).append('"');
+        }
+        json = sb.append('}').toString().getBytes(StandardCharsets.UTF_8);
+        jsonObject = HTTPBodyParser.JSON_OBJECT.deserialize(HTTPBodyParser.BYTES.serialize(json));
+    }
+    
+    @Benchmark
+    public byte[] bytesRoundTrip() throws IOException {
+        return HTTPBodyParser.BYTES.deserialize(HTTPBodyParser.BYTES.serialize(bytes));
+    }
+    
+    @Benchmark
+    public String stringRoundTrip() throws IOException {
+        return HTTPBodyParser.STRING.deserialize(HTTPBodyParser.STRING.serialize(string));
+    }
+    
+    @Benchmark
+    public String stringDeserializeSized() throws IOException {
+        // as for a response declaring its charset and Content-Length
+        return HTTPBodyParser.STRING.deserialize(HTTPBodyParser.BYTES.serialize(json), StandardCharsets.UTF_8, json.length);
+    }
+    
+    @Benchmark
+    public JSONObject jsonDeserialize() throws IOException {
+        return HTTPBodyParser.JSON_OBJECT.deserialize(HTTPBodyParser.BYTES.serialize(json));
+    }
+    
+    @Benchmark
+    public byte[] jsonSerialize() throws IOException {
+        return HTTPBodyParser.BYTES.deserialize(HTTPBodyParser.JSON_OBJECT.serialize(jsonObject));
+    }
+    
+    @Benchmark
+    public byte[] bodyOfString() throws IOException {
+        return HTTPBody.of(HTTPBodyParser.STRING, string).get(HTTPBodyParser.BYTES);
+    }
+}
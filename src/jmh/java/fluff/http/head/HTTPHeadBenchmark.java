@@ -0,0 +1,78 @@
+package fluff.http.head;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fluff.http.head.value.parsers.HTTPHeaderReader;
+import fluff.http.head.value.parsers.WeightedHTTPHeaderParser;
+import fluff.http.head.value.values.MediaType;
+import fluff.http.head.value.values.WeightedValue;
+
+/**
+ * Measures copying heads, looking up header values and parsing structured values,
+ * as done for every request and response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HTTPHeadBenchmark {
+    
+    private HTTPHead head;
+    
+    @Setup
+    public void setup() {
+        head = HTTPHead.builder()
+                .add("Content-Type", "application/json; charset=utf-8")
+                .add("Content-Length", "1024")
+                .add("Cache-Control", "max-age=60")
+                .add("ETag", "\"33a64df5\"")
+                .add("Set-Cookie", "a=1", "b=2")
+                .add("X-Request-Id", "4f9c2a")
+                .build();
+    }
+    
+    @Benchmark
+    public HTTPHead copy() {
+        return HTTPHead.builder().add(head).build();
+    }
+    
+    @Benchmark
+    public String get() {
+        return head.get("Content-Length");
+    }
+    
+    @Benchmark
+    public String getMissing() {
+        return head.get("Authorization");
+    }
+    
+    @Benchmark
+    public MediaType getMediaType() {
+        return head.get(HTTPHeader.CONTENT_MEDIA_TYPE);
+    }
+    
+    @Benchmark
+    public MediaType readMediaType() {
+        // bypasses the cache of parsed media types
+        return MediaType.read(new HTTPHeaderReader("application/json; charset=utf-8"));
+    }
+    
+    @Benchmark
+    public List<WeightedValue<MediaType>> parseAccept() {
+        return WeightedHTTPHeaderParser.MEDIA_TYPES.parse("text/html, application/xhtml+xml, application/xml;q=0.9, */*;q=0.8");
+    }
+}
@@ -0,0 +1,48 @@
+package fluff.http.path;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures parsing and deriving URL paths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class URLPathBenchmark {
+    
+    private URLPath base;
+    
+    @Setup
+    public void setup() {
+        base = URLPath.of("https://example.com/api/v1/");
+    }
+    
+    @Benchmark
+    public URLPath of() {
+        return URLPath.of("https://example.com/api/v1/users/42/posts");
+    }
+    
+    @Benchmark
+    public URLPath derive() {
+        return base.derive("users/42/posts");
+    }
+    
+    @Benchmark
+    public URLPath parent() {
+        return base.parent();
+    }
+}
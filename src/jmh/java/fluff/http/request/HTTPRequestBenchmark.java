@@ -0,0 +1,78 @@
+package fluff.http.request;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fluff.http.HTTP;
+import fluff.http.body.HTTPBody;
+import fluff.http.body.HTTPBodyParser;
+import fluff.http.head.HTTPHead;
+
+/**
+ * Measures building the HttpRequest of a request, which every exchange does before reaching the network.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HTTPRequestBenchmark {
+    
+    private HTTPRequest get;
+    private HTTPRequest post;
+    private HTTPRequest stream;
+    private HTTPRequestTemplate template;
+    
+    @Setup
+    public void setup() {
+        HTTP http = new HTTP();
+        HTTPHead head = HTTPHead.builder()
+                .add("Accept", "application/json")
+                .add("User-Agent", "fluff-http-benchmark")
+                .add("X-Request-Id", "4f9c2a")
+                .build();
+        
+        get = http.GET("https://example.com/api/v1/users?page=2").setHead(head);
+        post = http.POST("https://example.com/api/v1/users").setHead(head)
+                .setBody(HTTPBody.of(HTTPBodyParser.STRING, "{\"name\":\"fluff\",\"tags\":[\"a\",\"b\"]}"));
+        stream = http.POST("https://example.com/api/v1/upload").setHead(head)
+                .setBody(HTTPBody.of(() -> HTTPBodyParser.BYTES.serialize(new byte[1024])));
+        template = get.compile();
+    }
+    
+    @Benchmark
+    public InputStreamRequest createGet() {
+        return get.create();
+    }
+    
+    @Benchmark
+    public InputStreamRequest createPostBytes() {
+        return post.create();
+    }
+    
+    @Benchmark
+    public InputStreamRequest createPostStream() {
+        return stream.create();
+    }
+    
+    @Benchmark
+    public InputStreamRequest createCompiled() {
+        return template.toRequest().create();
+    }
+    
+    @Benchmark
+    public HTTPRequest copy() {
+        return post.copy();
+    }
+}
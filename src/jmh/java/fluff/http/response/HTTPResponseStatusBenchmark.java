@@ -0,0 +1,39 @@
+package fluff.http.response;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures resolving a status from its code, done for every response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HTTPResponseStatusBenchmark {
+    
+    @Param({"200", "404", "511", "999"})
+    public int code;
+    
+    @Benchmark
+    public HTTPResponseStatus byCode() {
+        return HTTPResponseStatus.byCode(code);
+    }
+    
+    @Benchmark
+    public HTTPResponseStatus.Series series() {
+        return HTTPResponseStatus.Series.resolve(code);
+    }
+}
@@ -6,10 +6,29 @@ import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpClient.Redirect;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
+import fluff.http.breaker.HTTPCircuitBreaker;
+import fluff.http.cache.HTTPCache;
+import fluff.http.hedge.HTTPHedgePolicy;
+import fluff.http.limit.HTTPRateLimits;
+import fluff.http.metrics.HTTPMetrics;
 import fluff.http.path.URLPath;
+import fluff.http.request.HTTPBatch;
+import fluff.http.request.HTTPBatchResult;
+import fluff.http.request.HTTPInterceptor;
 import fluff.http.request.HTTPRequest;
 import fluff.http.request.HTTPRequestMethod;
+import fluff.http.request.HTTPSingleFlight;
+import fluff.http.retry.HTTPRetryPolicy;
 
 /**
  * Provides an HTTP client for making HTTP requests.
@@ -19,12 +38,31 @@ public class HTTP {
     /**
      * The default HttpClient.Builder configuration.
      */
-    public static final HttpClient.Builder DEFAULT_CLIENT_BUILDER = HttpClient.newBuilder()
-            .followRedirects(Redirect.NORMAL)
-            .connectTimeout(Duration.ofSeconds(15))
-            .cookieHandler(new CookieManager(null, CookiePolicy.ACCEPT_ALL));
+    public static final HttpClient.Builder DEFAULT_CLIENT_BUILDER = newClientBuilder();
     
     private final HttpClient client;
+    private final Executor executor;
+    
+    private boolean compression;
+    private HTTPCache cache;
+    private HTTPSingleFlight singleFlight;
+    private HTTPRetryPolicy retryPolicy;
+    private HTTPHedgePolicy hedgePolicy;
+    private HTTPCircuitBreaker circuitBreaker;
+    private HTTPRateLimits rateLimits;
+    private HTTPMetrics metrics;
+    private volatile List<HTTPInterceptor> interceptors = List.of();
+    
+    /**
+     * Constructs an HTTP instance with the specified HttpClient and executor.
+     *
+     * @param client the HttpClient to use
+     * @param executor the executor used for blocking work and async completions, or null for none
+     */
+    public HTTP(HttpClient client, Executor executor) {
+        this.client = client;
+        this.executor = executor;
+    }
     
     /**
      * Constructs an HTTP instance with the specified HttpClient.
@@ -32,7 +70,7 @@ public class HTTP {
      * @param client the HttpClient to use
      */
     public HTTP(HttpClient client) {
-        this.client = client;
+        this(client, null);
     }
     
     /**
@@ -42,6 +80,56 @@ public class HTTP {
         this(DEFAULT_CLIENT_BUILDER.build());
     }
     
+    /**
+     * Returns the executor running blocking work, such as exchanges through interceptors.
+     * <p>
+     * This is the executor of this HTTP instance if it has one, otherwise a shared executor starting
+     * a virtual thread per task, or a cached pool of daemon threads on runtimes without virtual threads.
+     * Blocking work never runs on the common fork-join pool, whose few threads it would starve.
+     *
+     * @return the executor for blocking work
+     */
+    public Executor getBlockingExecutor() {
+        return executor != null ? executor : BlockingExecutor.INSTANCE;
+    }
+    
+    /**
+     * Runs the specified blocking task on the blocking executor of this HTTP instance.
+     * <p>
+     * This allows the synchronous {@link HTTPRequest#send()} style to be used from many concurrent tasks.
+     *
+     * @param <V> the type of the task result
+     * @param task the task to run
+     * @return a future completing with the task result
+     * @see #getBlockingExecutor()
+     */
+    public <V> CompletableFuture<V> submit(Supplier<V> task) {
+        return CompletableFuture.supplyAsync(task, getBlockingExecutor());
+    }
+    
+    /**
+     * Sends the specified requests in parallel and waits for all of them to complete.
+     *
+     * @param requests the requests to send
+     * @param concurrencyLimit the maximum number of in-flight requests per host
+     * @return the results, in the order of the requests
+     * @throws HTTPException if the current thread is interrupted while waiting
+     */
+    public List<HTTPBatchResult> sendAll(Collection<HTTPRequest> requests, int concurrencyLimit) throws HTTPException {
+        return new HTTPBatch(requests, concurrencyLimit).sendAll();
+    }
+    
+    /**
+     * Sends the specified requests in parallel and returns their results as they complete.
+     *
+     * @param requests the requests to send
+     * @param concurrencyLimit the maximum number of in-flight requests per host
+     * @return a stream of the results, in completion order
+     */
+    public Stream<HTTPBatchResult> streamAll(Collection<HTTPRequest> requests, int concurrencyLimit) {
+        return new HTTPBatch(requests, concurrencyLimit).stream();
+    }
+    
     /**
      * Creates a new GET request for the specified URL.
      *
@@ -150,4 +238,279 @@ public class HTTP {
     public HttpClient getClient() {
         return client;
     }
+    
+    /**
+     * Returns whether new requests negotiate response compression by default.
+     *
+     * @return true if compression is enabled, false otherwise
+     */
+    public boolean isCompression() {
+        return compression;
+    }
+    
+    /**
+     * Sets whether new requests negotiate response compression by default.
+     * <p>
+     * Such requests advertise gzip and deflate in the Accept-Encoding header,
+     * and their response bodies are decoded transparently while being read.
+     *
+     * @param compression true to enable compression, false otherwise
+     * @return this HTTP instance
+     */
+    public HTTP setCompression(boolean compression) {
+        this.compression = compression;
+        return this;
+    }
+    
+    /**
+     * Returns the cache used by requests sent through this HTTP instance.
+     *
+     * @return the cache, or null if caching is disabled
+     */
+    public HTTPCache getCache() {
+        return cache;
+    }
+    
+    /**
+     * Sets the cache used by requests sent through this HTTP instance.
+     *
+     * @param cache the cache, or null to disable caching
+     * @return this HTTP instance
+     */
+    public HTTP setCache(HTTPCache cache) {
+        this.cache = cache;
+        return this;
+    }
+    
+    /**
+     * Returns the single-flight coalescer used by requests sent through this HTTP instance.
+     *
+     * @return the single-flight coalescer, or null if coalescing is disabled
+     */
+    public HTTPSingleFlight getSingleFlight() {
+        return singleFlight;
+    }
+    
+    /**
+     * Sets the single-flight coalescer used by requests sent through this HTTP instance.
+     * <p>
+     * Coalescing happens before the cache, so identical requests missing the cache share one exchange.
+     *
+     * @param singleFlight the single-flight coalescer, or null to disable coalescing
+     * @return this HTTP instance
+     */
+    public HTTP setSingleFlight(HTTPSingleFlight singleFlight) {
+        this.singleFlight = singleFlight;
+        return this;
+    }
+    
+    /**
+     * Returns the retry policy applied by default to new requests.
+     *
+     * @return the retry policy, or null if requests are not retried
+     */
+    public HTTPRetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+    
+    /**
+     * Sets the retry policy applied by default to new requests.
+     *
+     * @param retryPolicy the retry policy, or null to not retry requests
+     * @return this HTTP instance
+     */
+    public HTTP setRetryPolicy(HTTPRetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+        return this;
+    }
+    
+    /**
+     * Returns the hedge policy applied by default to new requests.
+     *
+     * @return the hedge policy, or null if requests are not hedged
+     */
+    public HTTPHedgePolicy getHedgePolicy() {
+        return hedgePolicy;
+    }
+    
+    /**
+     * Sets the hedge policy applied by default to new requests.
+     *
+     * @param hedgePolicy the hedge policy, or null to not hedge requests
+     * @return this HTTP instance
+     */
+    public HTTP setHedgePolicy(HTTPHedgePolicy hedgePolicy) {
+        this.hedgePolicy = hedgePolicy;
+        return this;
+    }
+    
+    /**
+     * Returns the circuit breaker guarding every exchange of this HTTP instance.
+     *
+     * @return the circuit breaker, or null if exchanges are not guarded
+     */
+    public HTTPCircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+    
+    /**
+     * Sets the circuit breaker guarding every exchange of this HTTP instance.
+     *
+     * @param circuitBreaker the circuit breaker, or null to not guard exchanges
+     * @return this HTTP instance
+     */
+    public HTTP setCircuitBreaker(HTTPCircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+        return this;
+    }
+    
+    /**
+     * Returns the rate limits applied to every exchange of this HTTP instance.
+     *
+     * @return the rate limits, or null if exchanges are not rate limited
+     */
+    public HTTPRateLimits getRateLimits() {
+        return rateLimits;
+    }
+    
+    /**
+     * Sets the rate limits applied to every exchange of this HTTP instance, blocking or asynchronous.
+     *
+     * @param rateLimits the rate limits, or null to not rate limit exchanges
+     * @return this HTTP instance
+     */
+    public HTTP setRateLimits(HTTPRateLimits rateLimits) {
+        this.rateLimits = rateLimits;
+        return this;
+    }
+    
+    /**
+     * Returns the metrics recording every exchange of this HTTP instance.
+     *
+     * @return the metrics, or null if exchanges are not recorded
+     */
+    public HTTPMetrics getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * Sets the metrics recording every exchange of this HTTP instance.
+     *
+     * @param metrics the metrics, or null to not record exchanges
+     * @return this HTTP instance
+     */
+    public HTTP setMetrics(HTTPMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+    
+    /**
+     * Returns the interceptors every exchange of this HTTP instance goes through, in order.
+     *
+     * @return an unmodifiable list of the interceptors
+     */
+    public List<HTTPInterceptor> getInterceptors() {
+        return interceptors;
+    }
+    
+    /**
+     * Adds an interceptor after the existing ones.
+     *
+     * @param interceptor the interceptor to add
+     * @return this HTTP instance
+     */
+    public synchronized HTTP addInterceptor(HTTPInterceptor interceptor) {
+        List<HTTPInterceptor> list = new ArrayList<>(interceptors);
+        list.add(interceptor);
+        
+        // replaced rather than modified, so exchanges read the list without locking or copying
+        interceptors = List.copyOf(list);
+        return this;
+    }
+    
+    /**
+     * Removes an interceptor.
+     *
+     * @param interceptor the interceptor to remove
+     * @return this HTTP instance
+     */
+    public synchronized HTTP removeInterceptor(HTTPInterceptor interceptor) {
+        List<HTTPInterceptor> list = new ArrayList<>(interceptors);
+        list.remove(interceptor);
+        
+        interceptors = List.copyOf(list);
+        return this;
+    }
+    
+    /**
+     * Returns the executor used by this HTTP instance.
+     *
+     * @return the executor, or null if none was configured
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+    
+    /**
+     * Creates an HTTP instance where the HttpClient and all blocking work run on virtual threads.
+     * <p>
+     * Each blocking {@link HTTPRequest#send()} issued through {@link #submit(Supplier)} parks a cheap virtual thread
+     * instead of occupying a platform thread.
+     *
+     * @return a new HTTP instance using virtual threads
+     * @throws HTTPException if the runtime does not support virtual threads
+     */
+    public static HTTP virtual() throws HTTPException {
+        ExecutorService executor = newVirtualThreadExecutor();
+        return new HTTP(newClientBuilder().executor(executor).build(), executor);
+    }
+    
+    /**
+     * Creates a new HttpClient.Builder with the default configuration.
+     * <p>
+     * Unlike {@link #DEFAULT_CLIENT_BUILDER}, the returned builder is not shared and can be customized freely.
+     *
+     * @return a new HttpClient.Builder
+     */
+    public static HttpClient.Builder newClientBuilder() {
+        return HttpClient.newBuilder()
+                .followRedirects(Redirect.NORMAL)
+                .connectTimeout(Duration.ofSeconds(15))
+                .cookieHandler(new CookieManager(null, CookiePolicy.ACCEPT_ALL));
+    }
+    
+    /**
+     * Creates a new executor that starts a virtual thread for each task.
+     *
+     * @return the new executor
+     * @throws HTTPException if the runtime does not support virtual threads
+     */
+    public static ExecutorService newVirtualThreadExecutor() throws HTTPException {
+        // looked up reflectively, the library still targets runtimes without virtual threads
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new HTTPException("Virtual threads are not supported by this runtime!", e);
+        } catch (ReflectiveOperationException e) {
+            throw new HTTPException(e);
+        }
+    }
+    
+    // created on first use only
+    private static final class BlockingExecutor {
+        
+        private static final ExecutorService INSTANCE = create();
+        
+        private static ExecutorService create() {
+            try {
+                return newVirtualThreadExecutor();
+            } catch (HTTPException e) {
+                return Executors.newCachedThreadPool(runnable -> {
+                    Thread thread = new Thread(runnable, "fluff-http-blocking");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+        }
+    }
 }
@@ -0,0 +1,41 @@
+package fluff.http.body;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A publisher emitting the content of a buffer as a single item, without copying it.
+ */
+class ByteBufferPublisher implements Flow.Publisher<ByteBuffer> {
+    
+    private final ByteBuffer buffer;
+    
+    ByteBufferPublisher(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+    
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+        AtomicBoolean done = new AtomicBoolean();
+        
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                if (!done.compareAndSet(false, true)) return;
+                
+                if (n <= 0) {
+                    subscriber.onError(new IllegalArgumentException("Non-positive request: " + n));
+                    return;
+                }
+                subscriber.onNext(buffer.duplicate());
+                subscriber.onComplete();
+            }
+            
+            @Override
+            public void cancel() {
+                done.set(true);
+            }
+        });
+    }
+}
@@ -0,0 +1,137 @@
+package fluff.http.body;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import fluff.http.head.value.values.ContentEncodings;
+
+/**
+ * An input stream that decodes content-encoded data on the fly, counting both the encoded and decoded bytes.
+ * <p>
+ * The decoders are created on the first read, so an empty encoded body does not fail early.
+ * Closing the stream closes the decoders, releasing their native inflaters.
+ */
+public class DecodingInputStream extends InputStream {
+    
+    private final CountingInputStream encoded;
+    private final List<ContentEncodings> encodings;
+    
+    private InputStream decoded;
+    private long decodedCount;
+    
+    /**
+     * Constructs a new DecodingInputStream.
+     *
+     * @param in the encoded input stream
+     * @param encodings the codings applied to the content, in the order they were applied
+     */
+    public DecodingInputStream(InputStream in, List<ContentEncodings> encodings) {
+        this.encoded = new CountingInputStream(in);
+        this.encodings = List.copyOf(encodings);
+    }
+    
+    private InputStream decoded() throws IOException {
+        if (decoded == null) {
+            InputStream in = encoded;
+            try {
+                for (int i = encodings.size() - 1; i >= 0; i--) {
+                    in = encodings.get(i).decode(in);
+                }
+            } catch (IOException | RuntimeException e) {
+                // the decoders created so far hold inflaters of their own
+                try {
+                    in.close();
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+                throw e;
+            }
+            decoded = in;
+        }
+        return decoded;
+    }
+    
+    @Override
+    public int read() throws IOException {
+        int b = decoded().read();
+        if (b != -1) decodedCount++;
+        return b;
+    }
+    
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = decoded().read(b, off, len);
+        if (read > 0) decodedCount += read;
+        return read;
+    }
+    
+    @Override
+    public int available() throws IOException {
+        return decoded == null ? 0 : decoded.available();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        if (decoded != null) decoded.close();
+        else encoded.close();
+    }
+    
+    /**
+     * Returns the codings applied to the content.
+     *
+     * @return the codings, in the order they were applied
+     */
+    public List<ContentEncodings> getEncodings() {
+        return encodings;
+    }
+    
+    /**
+     * Returns the number of encoded bytes read so far, as received on the wire.
+     *
+     * @return the encoded byte count
+     */
+    public long getEncodedCount() {
+        return encoded.count;
+    }
+    
+    /**
+     * Returns the number of decoded bytes read so far.
+     *
+     * @return the decoded byte count
+     */
+    public long getDecodedCount() {
+        return decodedCount;
+    }
+    
+    private static class CountingInputStream extends FilterInputStream {
+        
+        private long count;
+        
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+        
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) count++;
+            return b;
+        }
+        
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) count += read;
+            return read;
+        }
+        
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
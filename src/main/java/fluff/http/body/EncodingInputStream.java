@@ -0,0 +1,89 @@
+package fluff.http.body;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import fluff.http.head.value.values.ContentEncodings;
+
+/**
+ * An input stream that encodes the content of another stream on the fly, one chunk at a time.
+ * <p>
+ * Closing the stream before its end closes the encoder too, releasing its native deflater.
+ */
+class EncodingInputStream extends InputStream {
+    
+    private final InputStream in;
+    private final ContentEncodings encoding;
+    private final byte[] chunk = new byte[8192];
+    private final Buffer buffer = new Buffer();
+    
+    private OutputStream encoder;
+    private int position;
+    private boolean finished;
+    
+    EncodingInputStream(InputStream in, ContentEncodings encoding) {
+        this.in = in;
+        this.encoding = encoding;
+    }
+    
+    private boolean fill() throws IOException {
+        if (encoder == null) encoder = encoding.encode(buffer);
+        
+        while (position == buffer.size() && !finished) {
+            buffer.reset();
+            position = 0;
+            
+            int read = in.read(chunk);
+            if (read == -1) {
+                encoder.close();
+                finished = true;
+            } else {
+                encoder.write(chunk, 0, read);
+            }
+        }
+        return position < buffer.size();
+    }
+    
+    @Override
+    public int read() throws IOException {
+        return fill() ? buffer.array()[position++] & 0xFF : -1;
+    }
+    
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        if (!fill()) return -1;
+        
+        int read = Math.min(len, buffer.size() - position);
+        System.arraycopy(buffer.array(), position, b, off, read);
+        position += read;
+        return read;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        try {
+            if (encoder != null && !finished) {
+                finished = true;
+                encoder.close();
+                // the trailer written on closing is never read
+                buffer.reset();
+                position = 0;
+            }
+        } finally {
+            in.close();
+        }
+    }
+    
+    private static class Buffer extends ByteArrayOutputStream {
+        
+        private byte[] array() {
+            return buf;
+        }
+        
+        @Override
+        public void close() {}
+    }
+}
@@ -1,10 +1,18 @@
 package fluff.http.body;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 import fluff.functions.gen.TFunc;
 import fluff.http.HTTPException;
+import fluff.http.head.value.values.ContentEncodings;
 
 /**
  * Represents the body of an HTTP request or response.
@@ -12,16 +20,30 @@ import fluff.http.HTTPException;
 public class HTTPBody {
     
     private final TFunc<InputStream, IOException> inFunc;
+    private final TFunc<BodyPublisher, IOException> publisherFunc;
+    private final long length;
+    private final boolean repeatable;
+    private final ContentEncodings encoding;
+    private final Charset charset;
     
-    private HTTPBody(TFunc<InputStream, IOException> inFunc) {
+    private HTTPBody(TFunc<InputStream, IOException> inFunc, TFunc<BodyPublisher, IOException> publisherFunc, long length, boolean repeatable, ContentEncodings encoding) {
+        this(inFunc, publisherFunc, length, repeatable, encoding, null);
+    }
+    
+    private HTTPBody(TFunc<InputStream, IOException> inFunc, TFunc<BodyPublisher, IOException> publisherFunc, long length, boolean repeatable, ContentEncodings encoding, Charset charset) {
         this.inFunc = inFunc;
+        this.publisherFunc = publisherFunc;
+        this.length = length;
+        this.repeatable = repeatable;
+        this.encoding = encoding;
+        this.charset = charset;
     }
     
     @SuppressWarnings("resource")
 	private <V> V get(HTTPBodyParser<V> parser, boolean close) throws HTTPException {
         try {
         	InputStream in = inFunc.invoke();
-			V value = parser.deserialize(in);
+			V value = parser.deserialize(in, charset, length);
 			if (close) in.close();
 			return value;
 		} catch (IOException e) {
@@ -61,6 +83,119 @@ public class HTTPBody {
 	public boolean isEmpty() {
         return inFunc == null;
 	}
+	
+	/**
+	 * Returns the length of the body content, if known.
+	 *
+	 * @return the length in bytes, or -1 if unknown
+	 */
+	public long getLength() {
+		return length;
+	}
+	
+	/**
+	 * Returns whether the length of the body content is known.
+	 *
+	 * @return true if the length is known, false otherwise
+	 */
+	public boolean hasLength() {
+		return length >= 0;
+	}
+	
+	/**
+	 * Returns whether the body content can be read more than once, for example to retry or redirect a request.
+	 *
+	 * @return true if the body is repeatable, false otherwise
+	 */
+	public boolean isRepeatable() {
+		return repeatable;
+	}
+	
+	/**
+	 * Returns the content coding applied to the body content.
+	 *
+	 * @return the content coding, or null if the content is not encoded
+	 */
+	public ContentEncodings getEncoding() {
+		return encoding;
+	}
+	
+	/**
+	 * Returns the charset of the body content, e.g. the charset parameter of the Content-Type of a response.
+	 *
+	 * @return the charset, or null if unknown
+	 */
+	public Charset getCharset() {
+		return charset;
+	}
+	
+	/**
+	 * Returns a copy of this body declaring the specified charset, used by text parsers to decode the content.
+	 *
+	 * @param charset the charset of the content, or null if unknown
+	 * @return the new body
+	 */
+	public HTTPBody withCharset(Charset charset) {
+		return new HTTPBody(inFunc, publisherFunc, length, repeatable, encoding, charset);
+	}
+	
+	/**
+	 * Returns a copy of this body declaring the specified length, e.g. the Content-Length of a response.
+	 *
+	 * @param length the length of the content in bytes, or -1 if unknown
+	 * @return the new body
+	 */
+	public HTTPBody withLength(long length) {
+		return new HTTPBody(inFunc, publisherFunc, length, repeatable, encoding, charset);
+	}
+	
+	/**
+	 * Returns a body that encodes this body content on the fly with the specified coding.
+	 * <p>
+	 * A request sending the returned body declares the coding in its Content-Encoding header.
+	 *
+	 * @param encoding the content coding to apply
+	 * @return the encoded body
+	 * @throws HTTPException if this body is already encoded
+	 */
+	public HTTPBody encode(ContentEncodings encoding) throws HTTPException {
+		return encode(encoding, 0);
+	}
+	
+	/**
+	 * Returns a body that encodes this body content on the fly with the specified coding,
+	 * unless the content is known to be smaller than the threshold.
+	 * <p>
+	 * A request sending the returned body declares the coding in its Content-Encoding header.
+	 * The length of the encoded content is not known in advance.
+	 *
+	 * @param encoding the content coding to apply
+	 * @param threshold the minimum content length in bytes worth encoding
+	 * @return the encoded body, or this body if encoding was skipped
+	 * @throws HTTPException if this body is already encoded
+	 */
+	public HTTPBody encode(ContentEncodings encoding, long threshold) throws HTTPException {
+		if (this.encoding != null) throw new HTTPException("Body is already encoded!");
+		if (isEmpty() || encoding == ContentEncodings.IDENTITY || (hasLength() && length < threshold)) return this;
+		
+		return new HTTPBody(() -> new EncodingInputStream(inFunc.invoke(), encoding), null, -1, repeatable, encoding, charset);
+	}
+	
+	/**
+	 * Creates a publisher that sends the body content directly from its native source.
+	 *
+	 * @return the body publisher, or null if the body can only be read as a stream
+	 * @throws HTTPException if an error occurs while creating the publisher
+	 */
+	public BodyPublisher getPublisher() throws HTTPException {
+		if (publisherFunc == null) return null;
+		
+		try {
+			return publisherFunc.invoke();
+		} catch (IOException e) {
+			throw new HTTPException(e);
+		}
+	}
     
     /**
      * Creates an empty HTTP body.
@@ -68,7 +203,7 @@ public class HTTPBody {
      * @return a new HTTPBody instance with an empty body
      */
 	public static HTTPBody of() {
-        return of(null);
+        return new HTTPBody(null, null, 0, true, null);
     }
 	
 	
@@ -79,7 +214,99 @@ public class HTTPBody {
 	 * @return a new HTTPBody instance with the specified content
 	 */
 	public static HTTPBody of(TFunc<InputStream, IOException> inFunc) {
-		return new HTTPBody(inFunc);
+		return of(inFunc, -1, false);
+	}
+	
+	/**
+	 * Creates an HTTP body from the specified input stream function, with known properties.
+	 *
+	 * @param inFunc the function to use for obtaining the input stream
+	 * @param length the length of the content in bytes, or -1 if unknown
+	 * @param repeatable whether each invocation of the function provides the whole content again
+	 * @return a new HTTPBody instance with the specified content
+	 */
+	public static HTTPBody of(TFunc<InputStream, IOException> inFunc, long length, boolean repeatable) {
+		return new HTTPBody(inFunc, null, length, repeatable, null);
+	}
+	
+	/**
+	 * Creates an HTTP body from the specified byte array, without copying it.
+	 *
+	 * @param bytes the byte array to use as content
+	 * @return a new HTTPBody instance with the specified content
+	 */
+	public static HTTPBody of(byte[] bytes) {
+		return of(bytes, 0, bytes.length);
+	}
+	
+	/**
+	 * Creates an HTTP body from a portion of the specified byte array, without copying it.
+	 *
+	 * @param bytes the byte array to use as content
+	 * @param off the start offset in the byte array
+	 * @param len the number of bytes to use
+	 * @return a new HTTPBody instance with the specified content
+	 */
+	public static HTTPBody of(byte[] bytes, int off, int len) {
+		return of(bytes, off, len, null);
+	}
+	
+	/**
+	 * Creates an HTTP body from a portion of the specified byte array holding content already encoded with a coding.
+	 *
+	 * @param bytes the byte array to use as content
+	 * @param off the start offset in the byte array
+	 * @param len the number of bytes to use
+	 * @param encoding the content coding of the bytes, or null if they are not encoded
+	 * @return a new HTTPBody instance with the specified content
+	 */
+	public static HTTPBody of(byte[] bytes, int off, int len, ContentEncodings encoding) {
+		return new HTTPBody(
+				() -> new ByteArrayInputStream(bytes, off, len),
+				() -> BodyPublishers.ofByteArray(bytes, off, len),
+				len,
+				true,
+				encoding);
+	}
+	
+	/**
+	 * Creates an HTTP body from the remaining content of the specified buffer, without copying it.
+	 * <p>
+	 * The position of the buffer is not modified.
+	 *
+	 * @param buffer the buffer to use as content
+	 * @return a new HTTPBody instance with the specified content
+	 */
+	public static HTTPBody of(ByteBuffer buffer) {
+		if (buffer.hasArray()) return of(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+		
+		ByteBuffer content = buffer.slice();
+		return new HTTPBody(
+				() -> new ByteBufferInputStream(content.duplicate()),
+				() -> BodyPublishers.fromPublisher(new ByteBufferPublisher(content), content.remaining()),
+				content.remaining(),
+				true,
+				null);
+	}
+	
+	/**
+	 * Creates an HTTP body from the content of the specified file, sent straight from the file system.
+	 *
+	 * @param path the file to use as content
+	 * @return a new HTTPBody instance with the specified content
+	 * @throws HTTPException if the size of the file cannot be read
+	 */
+	public static HTTPBody of(Path path) throws HTTPException {
+		try {
+			return new HTTPBody(
+					() -> Files.newInputStream(path),
+					() -> BodyPublishers.ofFile(path),
+					Files.size(path),
+					true,
+					null);
+		} catch (IOException e) {
+			throw new HTTPException(e);
+		}
 	}
     
 	/**
@@ -91,7 +318,7 @@ public class HTTPBody {
 	 * @return a new HTTPBody instance with the specified content
 	 */
 	public static <V> HTTPBody of(HTTPBodyParser<V> parser, V value) {
-		return new HTTPBody(() -> parser.serialize(value));
+		return parser.toBody(value);
 	}
 	
     /**
@@ -3,8 +3,10 @@ package fluff.http.body;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 
 import fluff.http.HTTPException;
+import fluff.http.head.value.values.ContentEncodings;
 
 /**
  * Builder class for constructing an {@link HTTPBody} instance.
@@ -13,6 +15,9 @@ public class HTTPBodyBuilder {
     
     protected final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
     
+    protected ContentEncodings encoding;
+    protected long threshold;
+    
     /**
      * Appends a portion of a byte array to the HTTP body.
      *
@@ -50,12 +55,38 @@ public class HTTPBodyBuilder {
 		}
 	}
     
+    /**
+     * Encodes the built body with the specified coding, unless it is smaller than the threshold.
+     *
+     * @param encoding the content coding to apply, or null to disable encoding
+     * @param threshold the minimum content length in bytes worth encoding
+     * @return this builder instance
+     */
+    public HTTPBodyBuilder encode(ContentEncodings encoding, long threshold) {
+        this.encoding = encoding;
+        this.threshold = threshold;
+        return this;
+    }
+    
     /**
      * Builds the HTTP body with the appended data.
+     * <p>
+     * Encoded content is compressed once here, so the body length stays known.
      *
      * @return a new {@link HTTPBody} instance containing the appended data
+     * @throws HTTPException if an error occurs while encoding the data
      */
-    public HTTPBody build() {
-        return HTTPBody.of(HTTPBodyParser.BYTES, bytes.toByteArray());
+    public HTTPBody build() throws HTTPException {
+        if (encoding == null || encoding == ContentEncodings.IDENTITY || bytes.size() < threshold) return HTTPBody.of(bytes.toByteArray());
+        
+        try {
+            ByteArrayOutputStream encoded = new ByteArrayOutputStream(bytes.size() / 4);
+            OutputStream out = encoding.encode(encoded);
+            bytes.writeTo(out);
+            out.close();
+            return HTTPBody.of(encoded.toByteArray(), 0, encoded.size(), encoding);
+        } catch (IOException e) {
+            throw new HTTPException(e);
+        }
     }
 }
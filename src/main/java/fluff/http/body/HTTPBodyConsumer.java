@@ -0,0 +1,23 @@
+package fluff.http.body;
+
+import java.io.IOException;
+
+import fluff.http.HTTPException;
+
+/**
+ * Interface representing a consumer of body content pieces, used by streaming parsers.
+ *
+ * @param <V> the type of the consumed pieces
+ */
+@FunctionalInterface
+public interface HTTPBodyConsumer<V> {
+    
+    /**
+     * Consumes the next piece of body content.
+     *
+     * @param value the piece of content
+     * @throws HTTPException if an error occurs while consuming the content
+     * @throws IOException if an I/O error occurs
+     */
+    void accept(V value) throws HTTPException, IOException;
+}
@@ -3,8 +3,17 @@ package fluff.http.body;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 
 import fluff.http.HTTPException;
+import fluff.http.body.parsers.ChunkHTTPBodyParser;
+import fluff.http.body.parsers.FileHTTPBodyParser;
+import fluff.http.body.parsers.JSONArrayHTTPBodyParser;
+import fluff.http.body.parsers.LineHTTPBodyParser;
+import fluff.http.body.parsers.StringHTTPBodyParser;
 import fluff.json.JSON;
 import fluff.json.JSONArray;
 import fluff.json.JSONObject;
@@ -29,6 +38,11 @@ public interface HTTPBodyParser<V> {
 		public InputStream deserialize(InputStream in) throws HTTPException, IOException {
 			return in;
 		}
+		
+		@Override
+		public HTTPBody toBody(InputStream value) {
+			return HTTPBody.of(() -> value, -1, false);
+		}
 	};
 	
 	/**
@@ -44,23 +58,18 @@ public interface HTTPBodyParser<V> {
 		public byte[] deserialize(InputStream in) throws HTTPException, IOException {
 			return in.readAllBytes();
 		}
-    };
-    
-	/**
-	 * Represents a parser for strings.
-	 */
-    HTTPBodyParser<String> STRING = new HTTPBodyParser<>() {
-		@Override
-		public InputStream serialize(String value) throws HTTPException, IOException {
-			return BYTES.serialize(value.getBytes());
-		}
 		
 		@Override
-		public String deserialize(InputStream in) throws HTTPException, IOException {
-			return new String(BYTES.deserialize(in));
+		public HTTPBody toBody(byte[] value) {
+			return HTTPBody.of(value);
 		}
     };
-    
+	
+	/**
+	 * Represents a parser for strings, decoded with the charset of the body or UTF-8.
+	 */
+    HTTPBodyParser<String> STRING = new StringHTTPBodyParser(null);
+	
 	/**
 	 * Represents a parser for JSON objects.
 	 */
@@ -72,10 +81,20 @@ public interface HTTPBodyParser<V> {
 		
 		@Override
 		public JSONObject deserialize(InputStream in) throws HTTPException, IOException {
-			return JSON.object(STRING.deserialize(in));
+			return deserialize(in, null, -1);
+		}
+		
+		@Override
+		public JSONObject deserialize(InputStream in, Charset charset, long length) throws HTTPException, IOException {
+			return JSON.object(STRING.deserialize(in, charset, length));
+		}
+		
+		@Override
+		public HTTPBody toBody(JSONObject value) {
+			return STRING.toBody(value.toString());
 		}
     };
-    
+	
 	/**
 	 * Represents a parser for JSON linked objects.
 	 */
@@ -87,7 +106,17 @@ public interface HTTPBodyParser<V> {
 		
 		@Override
 		public JSONObject deserialize(InputStream in) throws HTTPException, IOException {
-			return JSON.object(JSON::linkedObject, JSON::linkedArray, STRING.deserialize(in));
+			return deserialize(in, null, -1);
+		}
+		
+		@Override
+		public JSONObject deserialize(InputStream in, Charset charset, long length) throws HTTPException, IOException {
+			return JSON.object(JSON::linkedObject, JSON::linkedArray, STRING.deserialize(in, charset, length));
+		}
+		
+		@Override
+		public HTTPBody toBody(JSONObject value) {
+			return JSON_OBJECT.toBody(value);
 		}
     };
     
@@ -102,7 +131,17 @@ public interface HTTPBodyParser<V> {
 		
 		@Override
 		public JSONArray deserialize(InputStream in) throws HTTPException, IOException {
-			return JSON.array(STRING.deserialize(in));
+			return deserialize(in, null, -1);
+		}
+		
+		@Override
+		public JSONArray deserialize(InputStream in, Charset charset, long length) throws HTTPException, IOException {
+			return JSON.array(STRING.deserialize(in, charset, length));
+		}
+		
+		@Override
+		public HTTPBody toBody(JSONArray value) {
+			return STRING.toBody(value.toString());
 		}
     };
     
@@ -117,10 +156,114 @@ public interface HTTPBodyParser<V> {
 		
 		@Override
 		public JSONArray deserialize(InputStream in) throws HTTPException, IOException {
-			return JSON.array(JSON::linkedObject, JSON::linkedArray, STRING.deserialize(in));
+			return deserialize(in, null, -1);
+		}
+		
+		@Override
+		public JSONArray deserialize(InputStream in, Charset charset, long length) throws HTTPException, IOException {
+			return JSON.array(JSON::linkedObject, JSON::linkedArray, STRING.deserialize(in, charset, length));
+		}
+		
+		@Override
+		public HTTPBody toBody(JSONArray value) {
+			return JSON_ARRAY.toBody(value);
 		}
     };
     
+    /**
+     * Creates a parser for strings that always uses the specified charset, whatever the charset of the body.
+     *
+     * @param charset the charset used to encode and decode the content
+     * @return the parser
+     */
+    static HTTPBodyParser<String> string(Charset charset) {
+        return new StringHTTPBodyParser(charset);
+    }
+    
+    /**
+     * Creates a streaming parser that passes the body content to the consumer in chunks of up to 8192 bytes.
+     *
+     * @param consumer the consumer of the chunks, the buffer is reused between calls
+     * @return a parser whose result is the total number of bytes read
+     */
+    static HTTPBodyParser<Long> chunks(HTTPBodyConsumer<ByteBuffer> consumer) {
+        return chunks(8192, consumer);
+    }
+    
+    /**
+     * Creates a streaming parser that passes the body content to the consumer in chunks.
+     *
+     * @param bufferSize the maximum size of a chunk
+     * @param consumer the consumer of the chunks, the buffer is reused between calls
+     * @return a parser whose result is the total number of bytes read
+     * @throws IllegalArgumentException if the buffer size is not positive
+     */
+    static HTTPBodyParser<Long> chunks(int bufferSize, HTTPBodyConsumer<ByteBuffer> consumer) {
+        return new ChunkHTTPBodyParser(bufferSize, consumer);
+    }
+    
+    /**
+     * Creates a streaming parser that passes the UTF-8 body content to the consumer line by line.
+     *
+     * @param consumer the consumer of the lines
+     * @return a parser whose result is the number of lines read
+     */
+    static HTTPBodyParser<Long> lines(HTTPBodyConsumer<String> consumer) {
+        return lines(StandardCharsets.UTF_8, consumer);
+    }
+    
+    /**
+     * Creates a streaming parser that passes the body content to the consumer line by line.
+     *
+     * @param charset the charset used to decode the content
+     * @param consumer the consumer of the lines
+     * @return a parser whose result is the number of lines read
+     */
+    static HTTPBodyParser<Long> lines(Charset charset, HTTPBodyConsumer<String> consumer) {
+        return new LineHTTPBodyParser(charset, consumer);
+    }
+    
+    /**
+     * Creates a streaming parser that passes each object of a JSON array body to the consumer.
+     *
+     * @param consumer the consumer of the objects
+     * @return a parser whose result is the number of objects read
+     */
+    static HTTPBodyParser<Long> jsonObjects(HTTPBodyConsumer<JSONObject> consumer) {
+        return new JSONArrayHTTPBodyParser<>(JSON::object, consumer);
+    }
+    
+    /**
+     * Creates a streaming parser that passes each nested array of a JSON array body to the consumer.
+     *
+     * @param consumer the consumer of the arrays
+     * @return a parser whose result is the number of arrays read
+     */
+    static HTTPBodyParser<Long> jsonArrays(HTTPBodyConsumer<JSONArray> consumer) {
+        return new JSONArrayHTTPBodyParser<>(JSON::array, consumer);
+    }
+    
+    /**
+     * Creates a parser that transfers the body content into the specified file, replacing its content.
+     *
+     * @param path the file to write to
+     * @return a parser whose result is the path of the written file
+     */
+    static HTTPBodyParser<Path> file(Path path) {
+        return file(path, false);
+    }
+    
+    /**
+     * Creates a parser that transfers the body content into the specified file.
+     *
+     * @param path the file to write to
+     * @param append whether to append to the file instead of replacing its content
+     * @return a parser whose result is the path of the written file
+     */
+    static HTTPBodyParser<Path> file(Path path, boolean append) {
+        return new FileHTTPBodyParser(path, append);
+    }
+	
 	/**
 	 * Serializes the given value into an input stream.
 	 *
@@ -140,4 +283,34 @@ public interface HTTPBodyParser<V> {
      * @throws IOException if an I/O error occurs
      */
     V deserialize(InputStream in) throws HTTPException, IOException;
+    
+    /**
+     * Deserializes the given input stream into a value, using what is known about the content.
+     * <p>
+     * Text parsers decode with the charset and size their buffers by the length. By default both are ignored.
+     *
+     * @param in the input stream to parse
+     * @param charset the charset of the content, or null if unknown
+     * @param length the length of the content in bytes, or -1 if unknown
+     * @return the parsed result
+     * @throws HTTPException if an error occurs during parsing
+     * @throws IOException if an I/O error occurs
+     */
+    default V deserialize(InputStream in, Charset charset, long length) throws HTTPException, IOException {
+        return deserialize(in);
+    }
+    
+    /**
+     * Creates an HTTP body holding the given value.
+     * <p>
+     * By default the value is serialized again each time the body is read, and its length is unknown.
+     * Parsers for in-memory values override this to provide a body with a known length.
+     *
+     * @param value the value to hold
+     * @return a new repeatable HTTPBody instance
+     * @throws HTTPException if an error occurs during serialization
+     */
+    default HTTPBody toBody(V value) throws HTTPException {
+        return HTTPBody.of(() -> serialize(value), -1, true);
+    }
 }
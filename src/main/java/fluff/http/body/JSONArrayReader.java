@@ -0,0 +1,151 @@
+package fluff.http.body;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import fluff.http.HTTPException;
+
+/**
+ * Reads the elements of a JSON array one at a time, without loading the whole array in memory.
+ * <p>
+ * Each element is returned as its compact JSON text, ready to be parsed on its own.
+ */
+public class JSONArrayReader implements Iterator<String>, Closeable {
+    
+    private final Reader reader;
+    private final StringBuilder element = new StringBuilder();
+    
+    private boolean started;
+    private boolean finished;
+    private int pushback = -1;
+    private String next;
+    
+    /**
+     * Constructs a new JSONArrayReader reading UTF-8 JSON from the specified input stream.
+     *
+     * @param in the input stream to read from
+     */
+    public JSONArrayReader(InputStream in) {
+        this(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Constructs a new JSONArrayReader reading JSON from the specified reader.
+     *
+     * @param reader the reader to read from
+     */
+    public JSONArrayReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader ? reader : new BufferedReader(reader);
+    }
+    
+    /**
+     * Returns whether the array has more elements.
+     *
+     * @return true if another element is available, false otherwise
+     * @throws HTTPException if the content is not a valid JSON array or an I/O error occurs
+     */
+    @Override
+    public boolean hasNext() throws HTTPException {
+        if (next == null && !finished) {
+            try {
+                next = readElement();
+            } catch (IOException e) {
+                throw new HTTPException(e);
+            }
+        }
+        return next != null;
+    }
+    
+    /**
+     * Returns the JSON text of the next element.
+     *
+     * @return the next element
+     * @throws HTTPException if the content is not a valid JSON array or an I/O error occurs
+     */
+    @Override
+    public String next() throws HTTPException {
+        if (!hasNext()) throw new NoSuchElementException();
+        
+        String value = next;
+        next = null;
+        return value;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+    
+    private String readElement() throws IOException {
+        if (!started) {
+            if (readSignificant() != '[') throw new HTTPException("Expected a JSON array!");
+            started = true;
+            
+            int c = readSignificant();
+            if (c == ']') {
+                finished = true;
+                return null;
+            }
+            pushback = c;
+        }
+        
+        element.setLength(0);
+        int depth = 0;
+        boolean string = false;
+        boolean escape = false;
+        
+        while (true) {
+            int c = read();
+            if (c == -1) throw new HTTPException("Unexpected end of JSON array!");
+            
+            if (string) {
+                element.append((char) c);
+                
+                if (escape) escape = false;
+                else if (c == '\\') escape = true;
+                else if (c == '"') string = false;
+                continue;
+            }
+            
+            if (Character.isWhitespace(c)) continue;
+            
+            if (depth == 0 && (c == ',' || c == ']')) {
+                if (element.length() == 0) throw new HTTPException("Empty JSON array element!");
+                if (c == ']') finished = true;
+                return element.toString();
+            }
+            
+            switch (c) {
+                case '"' -> string = true;
+                case '{', '[' -> depth++;
+                case '}', ']' -> depth--;
+            }
+            if (depth < 0) throw new HTTPException("Unbalanced JSON array element!");
+            
+            element.append((char) c);
+        }
+    }
+    
+    private int readSignificant() throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c != -1 && Character.isWhitespace(c));
+        return c;
+    }
+    
+    private int read() throws IOException {
+        if (pushback == -1) return reader.read();
+        
+        int c = pushback;
+        pushback = -1;
+        return c;
+    }
+}
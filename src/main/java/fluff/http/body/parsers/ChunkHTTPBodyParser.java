@@ -0,0 +1,49 @@
+package fluff.http.body.parsers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import fluff.http.HTTPException;
+import fluff.http.body.HTTPBodyConsumer;
+
+/**
+ * A streaming parser that passes the body content to a consumer in fixed-size chunks.
+ * <p>
+ * The same buffer is reused for every chunk, so consumers must not keep a reference to it.
+ * The parsed result is the total number of bytes read.
+ */
+public class ChunkHTTPBodyParser extends StreamingHTTPBodyParser<Long> {
+    
+    private final int bufferSize;
+    private final HTTPBodyConsumer<ByteBuffer> consumer;
+    
+    /**
+     * Constructs a new ChunkHTTPBodyParser.
+     *
+     * @param bufferSize the maximum size of a chunk
+     * @param consumer the consumer of the chunks
+     * @throws IllegalArgumentException if the buffer size is not positive
+     */
+    public ChunkHTTPBodyParser(int bufferSize, HTTPBodyConsumer<ByteBuffer> consumer) {
+        if (bufferSize < 1) throw new IllegalArgumentException("Buffer size must be positive!");
+        
+        this.bufferSize = bufferSize;
+        this.consumer = consumer;
+    }
+    
+    @Override
+    public Long deserialize(InputStream in) throws HTTPException, IOException {
+        byte[] buffer = new byte[bufferSize];
+        ByteBuffer chunk = ByteBuffer.wrap(buffer);
+        long total = 0;
+        
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            chunk.clear().limit(read);
+            consumer.accept(chunk);
+            total += read;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,61 @@
+package fluff.http.body.parsers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import fluff.http.HTTPException;
+import fluff.http.body.HTTPBody;
+import fluff.http.body.HTTPBodyParser;
+
+/**
+ * A parser that transfers the body content straight into a file, without buffering it on the heap.
+ * <p>
+ * The parsed result is the path of the written file. Serializing a path reads the file content.
+ */
+public class FileHTTPBodyParser implements HTTPBodyParser<Path> {
+    
+    private final Path path;
+    private final boolean append;
+    
+    /**
+     * Constructs a new FileHTTPBodyParser.
+     *
+     * @param path the file to write to
+     * @param append whether to append to the file instead of replacing its content
+     */
+    public FileHTTPBodyParser(Path path, boolean append) {
+        this.path = path;
+        this.append = append;
+    }
+    
+    @Override
+    public InputStream serialize(Path value) throws HTTPException, IOException {
+        return Files.newInputStream(value);
+    }
+    
+    @Override
+    public HTTPBody toBody(Path value) throws HTTPException {
+        return HTTPBody.of(value);
+    }
+    
+    @Override
+    public Path deserialize(InputStream in) throws HTTPException, IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING)) {
+            ReadableByteChannel source = Channels.newChannel(in);
+            long position = channel.size();
+            
+            long transferred;
+            while ((transferred = channel.transferFrom(source, position, Long.MAX_VALUE)) > 0) {
+                position += transferred;
+            }
+        }
+        return path;
+    }
+}
@@ -0,0 +1,45 @@
+package fluff.http.body.parsers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Function;
+
+import fluff.http.HTTPException;
+import fluff.http.body.HTTPBodyConsumer;
+import fluff.http.body.JSONArrayReader;
+
+/**
+ * A streaming parser that passes the elements of a JSON array body to a consumer one at a time.
+ * <p>
+ * Only a single element is held in memory at once. The parsed result is the number of elements read.
+ *
+ * @param <V> the type of the array elements
+ */
+public class JSONArrayHTTPBodyParser<V> extends StreamingHTTPBodyParser<Long> {
+    
+    private final Function<String, V> elementParser;
+    private final HTTPBodyConsumer<V> consumer;
+    
+    /**
+     * Constructs a new JSONArrayHTTPBodyParser.
+     *
+     * @param elementParser the function parsing the JSON text of an element
+     * @param consumer the consumer of the elements
+     */
+    public JSONArrayHTTPBodyParser(Function<String, V> elementParser, HTTPBodyConsumer<V> consumer) {
+        this.elementParser = elementParser;
+        this.consumer = consumer;
+    }
+    
+    @Override
+    public Long deserialize(InputStream in) throws HTTPException, IOException {
+        JSONArrayReader reader = new JSONArrayReader(in);
+        long count = 0;
+        
+        while (reader.hasNext()) {
+            consumer.accept(elementParser.apply(reader.next()));
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,45 @@
+package fluff.http.body.parsers;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+
+import fluff.http.HTTPException;
+import fluff.http.body.HTTPBodyConsumer;
+
+/**
+ * A streaming parser that passes the body content to a consumer line by line.
+ * <p>
+ * The parsed result is the number of lines read.
+ */
+public class LineHTTPBodyParser extends StreamingHTTPBodyParser<Long> {
+    
+    private final Charset charset;
+    private final HTTPBodyConsumer<String> consumer;
+    
+    /**
+     * Constructs a new LineHTTPBodyParser.
+     *
+     * @param charset the charset used to decode the content
+     * @param consumer the consumer of the lines
+     */
+    public LineHTTPBodyParser(Charset charset, HTTPBodyConsumer<String> consumer) {
+        this.charset = charset;
+        this.consumer = consumer;
+    }
+    
+    @Override
+    public Long deserialize(InputStream in) throws HTTPException, IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, charset));
+        long count = 0;
+        
+        String line;
+        while ((line = reader.readLine()) != null) {
+            consumer.accept(line);
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,21 @@
+package fluff.http.body.parsers;
+
+import java.io.InputStream;
+
+import fluff.http.HTTPException;
+import fluff.http.body.HTTPBodyParser;
+
+/**
+ * Base class for parsers that consume the body content incrementally instead of producing a value from it.
+ * <p>
+ * Such parsers can only deserialize, their result is a summary of the consumed content.
+ *
+ * @param <V> the type of the parsed result
+ */
+public abstract class StreamingHTTPBodyParser<V> implements HTTPBodyParser<V> {
+    
+    @Override
+    public InputStream serialize(V value) throws HTTPException {
+        throw new HTTPException("Streaming parsers cannot serialize!");
+    }
+}
@@ -0,0 +1,117 @@
+package fluff.http.body.parsers;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+import fluff.http.HTTPException;
+import fluff.http.body.HTTPBody;
+import fluff.http.body.HTTPBodyParser;
+
+/**
+ * A parser for text content.
+ * <p>
+ * The content is decoded incrementally while it is read, into a builder growing toward the length of the content
+ * when known, so the raw bytes are never held in full. Malformed input is replaced, as by {@link String#String(byte[], Charset)}.
+ */
+public class StringHTTPBodyParser implements HTTPBodyParser<String> {
+    
+    private static final int BUFFER_SIZE = 8192;
+    // a peer controls the Content-Length, so larger content grows the builder as it actually arrives
+    private static final int MAX_PRESIZE = 1 << 16;
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+    
+    private final Charset charset;
+    
+    /**
+     * Constructs a new StringHTTPBodyParser.
+     *
+     * @param charset the charset always used for the content, or null to use the charset of the body,
+     * falling back to UTF-8
+     */
+    public StringHTTPBodyParser(Charset charset) {
+        this.charset = charset;
+    }
+    
+    @Override
+    public InputStream serialize(String value) throws HTTPException, IOException {
+        return new ByteArrayInputStream(value.getBytes(getCharset(null)));
+    }
+    
+    @Override
+    public String deserialize(InputStream in) throws HTTPException, IOException {
+        return deserialize(in, null, -1);
+    }
+    
+    @Override
+    public String deserialize(InputStream in, Charset charset, long length) throws HTTPException, IOException {
+        CharsetDecoder decoder = getCharset(charset).newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        
+        long expected = length >= 0 ? Math.min((long) Math.ceil(length * (double) decoder.averageCharsPerByte()), MAX_CAPACITY) : 0;
+        StringBuilder sb = new StringBuilder(length >= 0 ? (int) Math.min(expected, MAX_PRESIZE) : 16);
+        
+        // small enough for short content, large enough for any character split across reads
+        byte[] bytes = new byte[length >= 0 ? (int) Math.min(Math.max(length, 16), BUFFER_SIZE) : BUFFER_SIZE];
+        ByteBuffer input = ByteBuffer.wrap(bytes);
+        CharBuffer output = CharBuffer.allocate(Math.max(BUFFER_SIZE, (int) Math.ceil(bytes.length * (double) decoder.maxCharsPerByte())));
+        
+        while (true) {
+            int n = in.read(bytes, input.position(), bytes.length - input.position());
+            boolean end = n < 0;
+            if (!end) input.position(input.position() + n);
+            
+            input.flip();
+            decode(decoder, input, output, sb, end);
+            // keeps a character split across reads for the next one
+            input.compact();
+            
+            if (end) break;
+            // at most doubles what was received, so a false length cannot allocate ahead of the content
+            if (sb.length() < expected) sb.ensureCapacity((int) Math.min(expected, 2L * sb.length()));
+        }
+        
+        while (decoder.flush(output).isOverflow()) {
+            drain(output, sb);
+        }
+        drain(output, sb);
+        return sb.toString();
+    }
+    
+    @Override
+    public HTTPBody toBody(String value) {
+        Charset charset = getCharset(null);
+        return HTTPBody.of(value.getBytes(charset)).withCharset(charset);
+    }
+    
+    private Charset getCharset(Charset bodyCharset) {
+        if (charset != null) return charset;
+        return bodyCharset != null ? bodyCharset : StandardCharsets.UTF_8;
+    }
+    
+    private static void decode(CharsetDecoder decoder, ByteBuffer input, CharBuffer output, StringBuilder sb, boolean end) throws IOException {
+        while (true) {
+            CoderResult result = decoder.decode(input, output, end);
+            if (result.isOverflow()) {
+                drain(output, sb);
+                continue;
+            }
+            if (result.isError()) result.throwException();
+            return;
+        }
+    }
+    
+    private static void drain(CharBuffer output, StringBuilder sb) {
+        output.flip();
+        sb.append(output.array(), output.arrayOffset() + output.position(), output.remaining());
+        output.clear();
+    }
+}
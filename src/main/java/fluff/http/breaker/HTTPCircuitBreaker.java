@@ -0,0 +1,307 @@
+package fluff.http.breaker;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import fluff.functions.gen.TFunc;
+import fluff.http.HTTPException;
+import fluff.http.request.HTTPRequest;
+import fluff.http.response.HTTPResponse;
+import fluff.http.response.HTTPResponseStatus;
+
+/**
+ * A circuit breaker tracking the health of each host, keyed by URI authority.
+ * <p>
+ * Exchanges failing with an error or a server error status, and exchanges slower than the slow call duration,
+ * are counted over a time window. Once enough calls were made and the failure or slow call rate reaches its
+ * threshold, the circuit opens and requests to the host fail fast with an {@link HTTPCircuitOpenException}.
+ * After the open duration, a few probe requests are let through: the circuit closes if they all succeed
+ * and opens again otherwise.
+ */
+public class HTTPCircuitBreaker {
+    
+    /**
+     * Enumeration of circuit states.
+     */
+    public static enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN;
+    }
+    
+    // total, failed and slow calls of a window are packed in a single long, so they are always read together
+    private static final int COUNT_BITS = 21;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final long TOTAL = 1;
+    private static final long FAILED = 1L << COUNT_BITS;
+    private static final long SLOW = 1L << (COUNT_BITS * 2);
+    
+    private final ConcurrentMap<String, Circuit> circuits = new ConcurrentHashMap<>();
+    private final LongAdder rejected = new LongAdder();
+    
+    private double failureRateThreshold = 0.5;
+    private double slowCallRateThreshold = 1;
+    private Duration slowCallDuration = Duration.ofSeconds(5);
+    private int minimumCalls = 20;
+    private Duration window = Duration.ofSeconds(10);
+    private Duration openDuration = Duration.ofSeconds(30);
+    private int probes = 3;
+    
+    /**
+     * Sends the request through the circuit of its host.
+     *
+     * @param request the request to send
+     * @param exchange the function performing the exchange
+     * @return the HTTP response
+     * @throws HTTPCircuitOpenException if the circuit of the host is open
+     * @throws HTTPException if an error occurs while sending the request
+     */
+    public HTTPResponse send(HTTPRequest request, TFunc<HTTPResponse, HTTPException> exchange) throws HTTPException {
+        Permit permit = acquire(request);
+        
+        HTTPResponse response;
+        try {
+            response = exchange.invoke();
+        } catch (Throwable e) {
+            permit.onError(e);
+            throw e;
+        }
+        
+        permit.onResponse(response.getStatus());
+        return response;
+    }
+    
+    /**
+     * Admits an exchange performed outside of {@link #send(HTTPRequest, TFunc)}, e.g. asynchronously,
+     * whose outcome must then be reported exactly once to the returned permit.
+     *
+     * @param request the request to send
+     * @return the permit of the exchange
+     * @throws HTTPCircuitOpenException if the circuit of the host is open
+     */
+    public Permit acquire(HTTPRequest request) throws HTTPCircuitOpenException {
+        String authority = String.valueOf(request.getURI().getAuthority());
+        Circuit circuit = circuits.computeIfAbsent(authority, k -> new Circuit());
+        
+        long start = System.nanoTime();
+        if (!circuit.acquire(start)) {
+            rejected.increment();
+            throw new HTTPCircuitOpenException(authority);
+        }
+        return new Permit(circuit, start);
+    }
+    
+    /**
+     * Returns the state of the circuit of the specified host.
+     *
+     * @param authority the authority of the host
+     * @return the circuit state
+     */
+    public State getState(String authority) {
+        Circuit circuit = circuits.get(authority);
+        return circuit != null ? State.values()[circuit.state.get()] : State.CLOSED;
+    }
+    
+    /**
+     * Returns the number of requests rejected because their circuit was open.
+     *
+     * @return the number of rejected requests
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+    
+    /**
+     * Sets the failure rate at which a circuit opens.
+     *
+     * @param failureRateThreshold the failure rate, between 0 and 1
+     * @return this HTTPCircuitBreaker instance
+     */
+    public HTTPCircuitBreaker setFailureRateThreshold(double failureRateThreshold) {
+        this.failureRateThreshold = failureRateThreshold;
+        return this;
+    }
+    
+    /**
+     * Sets the slow call rate at which a circuit opens.
+     *
+     * @param slowCallRateThreshold the slow call rate, between 0 and 1
+     * @return this HTTPCircuitBreaker instance
+     */
+    public HTTPCircuitBreaker setSlowCallRateThreshold(double slowCallRateThreshold) {
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        return this;
+    }
+    
+    /**
+     * Sets the duration from which a call is considered slow.
+     *
+     * @param slowCallDuration the slow call duration
+     * @return this HTTPCircuitBreaker instance
+     */
+    public HTTPCircuitBreaker setSlowCallDuration(Duration slowCallDuration) {
+        this.slowCallDuration = slowCallDuration;
+        return this;
+    }
+    
+    /**
+     * Sets the number of calls a window needs before its rates are evaluated.
+     *
+     * @param minimumCalls the minimum number of calls
+     * @return this HTTPCircuitBreaker instance
+     */
+    public HTTPCircuitBreaker setMinimumCalls(int minimumCalls) {
+        this.minimumCalls = minimumCalls;
+        return this;
+    }
+    
+    /**
+     * Sets the duration of the window calls are counted over.
+     *
+     * @param window the window duration
+     * @return this HTTPCircuitBreaker instance
+     */
+    public HTTPCircuitBreaker setWindow(Duration window) {
+        this.window = window;
+        return this;
+    }
+    
+    /**
+     * Sets how long a circuit stays open before letting probe requests through.
+     *
+     * @param openDuration the open duration
+     * @return this HTTPCircuitBreaker instance
+     */
+    public HTTPCircuitBreaker setOpenDuration(Duration openDuration) {
+        this.openDuration = openDuration;
+        return this;
+    }
+    
+    /**
+     * Sets the number of successful probe requests needed to close a circuit.
+     *
+     * @param probes the number of probes
+     * @return this HTTPCircuitBreaker instance
+     */
+    public HTTPCircuitBreaker setProbes(int probes) {
+        this.probes = Math.max(probes, 1);
+        return this;
+    }
+    
+    /**
+     * An exchange admitted by the circuit of its host, waiting for its outcome.
+     */
+    public static final class Permit {
+        
+        private final Circuit circuit;
+        private final long start;
+        
+        private Permit(Circuit circuit, long start) {
+            this.circuit = circuit;
+            this.start = start;
+        }
+        
+        /**
+         * Reports that the response head was received.
+         *
+         * @param status the response status, null if unknown
+         */
+        public void onResponse(HTTPResponseStatus status) {
+            circuit.record(status == null || status.getSeries() == HTTPResponseStatus.Series.SERVER_ERROR, System.nanoTime() - start);
+        }
+        
+        /**
+         * Reports that the exchange failed.
+         * <p>
+         * Only I/O failures count against the host. An interrupted or cancelled exchange, a bug or a failure
+         * of this process says nothing about it, and only frees the permit.
+         *
+         * @param error the error, possibly wrapped in a {@link CompletionException}
+         */
+        public void onError(Throwable error) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof HTTPException && cause.getCause() != null) cause = cause.getCause();
+            
+            if (cause instanceof IOException || cause instanceof HTTPException) circuit.record(true, System.nanoTime() - start);
+            else circuit.release();
+        }
+    }
+    
+    private class Circuit {
+        
+        private final AtomicInteger state = new AtomicInteger(State.CLOSED.ordinal());
+        private final AtomicLong counts = new AtomicLong();
+        private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+        private final AtomicInteger probesStarted = new AtomicInteger();
+        private final AtomicInteger probesSucceeded = new AtomicInteger();
+        private volatile long openedAt;
+        
+        private boolean acquire(long now) {
+            int current = state.get();
+            if (current == State.CLOSED.ordinal()) return true;
+            
+            if (current == State.OPEN.ordinal()) {
+                if (now - openedAt < openDuration.toNanos()) return false;
+                
+                if (state.compareAndSet(current, State.HALF_OPEN.ordinal())) {
+                    probesSucceeded.set(0);
+                    probesStarted.set(1);
+                    return true;
+                }
+            }
+            
+            // rejected requests must not count as started, or released probes could never be replaced
+            while (true) {
+                int started = probesStarted.get();
+                if (started >= probes) return state.get() == State.CLOSED.ordinal();
+                if (probesStarted.compareAndSet(started, started + 1)) return true;
+            }
+        }
+        
+        private void release() {
+            if (state.get() == State.HALF_OPEN.ordinal()) probesStarted.decrementAndGet();
+        }
+        
+        private void record(boolean failed, long latency) {
+            int current = state.get();
+            if (current == State.HALF_OPEN.ordinal()) {
+                if (failed) trip(current);
+                else if (probesSucceeded.incrementAndGet() >= probes && state.compareAndSet(current, State.CLOSED.ordinal())) reset(System.nanoTime());
+                return;
+            }
+            if (current != State.CLOSED.ordinal()) return;
+            
+            long now = System.nanoTime();
+            long start = windowStart.get();
+            if (now - start > window.toNanos() && windowStart.compareAndSet(start, now)) counts.set(0);
+            
+            boolean slow = latency >= slowCallDuration.toNanos();
+            long c = counts.addAndGet(TOTAL + (failed ? FAILED : 0) + (slow ? SLOW : 0));
+            
+            long total = c & COUNT_MASK;
+            long failures = (c >>> COUNT_BITS) & COUNT_MASK;
+            long slows = (c >>> (COUNT_BITS * 2)) & COUNT_MASK;
+            
+            if (total >= minimumCalls && (failures >= total * failureRateThreshold || slows >= total * slowCallRateThreshold)) trip(current);
+            else if (total == COUNT_MASK) reset(now);
+        }
+        
+        private void trip(int expected) {
+            if (!state.compareAndSet(expected, State.OPEN.ordinal())) return;
+            
+            openedAt = System.nanoTime();
+            probesStarted.set(0);
+        }
+        
+        private void reset(long now) {
+            windowStart.set(now);
+            counts.set(0);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package fluff.http.breaker;
+
+import fluff.http.HTTPException;
+
+/**
+ * Thrown when a request is rejected without being sent because the circuit of its host is open.
+ */
+public class HTTPCircuitOpenException extends HTTPException {
+    
+    private static final long serialVersionUID = 5921384017763421950L;
+    
+    private final String authority;
+    
+    /**
+     * Constructs a new HTTPCircuitOpenException for the specified host.
+     *
+     * @param authority the authority of the rejected request's URI
+     */
+    public HTTPCircuitOpenException(String authority) {
+        super("Circuit open for host: " + authority);
+        this.authority = authority;
+    }
+    
+    /**
+     * Returns the authority of the rejected request's URI.
+     *
+     * @return the authority
+     */
+    public String getAuthority() {
+        return authority;
+    }
+}
@@ -0,0 +1,275 @@
+package fluff.http.cache;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import fluff.http.HTTPException;
+
+/**
+ * A cache store keeping each entry in its own file inside a directory, bounded by the total size of the files.
+ * <p>
+ * Entries are written to a temporary file first and then moved in place, so readers never see partial entries.
+ * Once the directory exceeds its maximum size, the least recently used entries are deleted, reads touching
+ * the modification time of their file. Corrupt or truncated entries are reported as an {@link HTTPException}.
+ */
+public class DiskHTTPCacheStore implements HTTPCacheStore {
+    
+    /**
+     * The default maximum total size of the entries.
+     */
+    public static final long DEFAULT_MAX_SIZE = 256L * 1024 * 1024;
+    
+    private static final int VERSION = 2;
+    private static final String TEMP_SUFFIX = ".tmp";
+    
+    private final Path directory;
+    private final long maxSize;
+    // may drift when entries are replaced concurrently, eviction recounts the files
+    private final AtomicLong size = new AtomicLong();
+    
+    /**
+     * Constructs a new DiskHTTPCacheStore.
+     *
+     * @param directory the directory holding the entries, created if missing
+     * @param maxSize the maximum total size of the entry files, in bytes
+     * @throws HTTPException if the directory cannot be created or read
+     */
+    public DiskHTTPCacheStore(Path directory, long maxSize) throws HTTPException {
+        this.directory = directory;
+        this.maxSize = maxSize;
+        
+        try {
+            Files.createDirectories(directory);
+            size.set(countFiles(new ArrayList<>()));
+        } catch (IOException e) {
+            throw new HTTPException(e);
+        }
+    }
+    
+    /**
+     * Constructs a new DiskHTTPCacheStore with the default maximum size.
+     *
+     * @param directory the directory holding the entries, created if missing
+     * @throws HTTPException if the directory cannot be created or read
+     */
+    public DiskHTTPCacheStore(Path directory) throws HTTPException {
+        this(directory, DEFAULT_MAX_SIZE);
+    }
+    
+    @Override
+    public HTTPCacheEntry get(String key) throws HTTPException {
+        Path file = file(key);
+        try {
+            HTTPCacheEntry entry = read(Files.readAllBytes(file));
+            if (entry != null) touch(file);
+            return entry;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new HTTPException(e);
+        }
+    }
+    
+    private static HTTPCacheEntry read(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        if (data.length < 4 || in.readInt() != VERSION) return null;
+        
+        String uri = readString(in);
+        int status = in.readInt();
+        long storedAt = in.readLong();
+        long expiresAt = in.readLong();
+        
+        // every header takes at least 8 bytes, and every value at least 4
+        int headerCount = readLength(in, 8);
+        Map<String, List<String>> headers = new HashMap<>();
+        for (int i = 0; i < headerCount; i++) {
+            String name = readString(in);
+            int valueCount = readLength(in, 4);
+            
+            List<String> values = new ArrayList<>(valueCount);
+            for (int j = 0; j < valueCount; j++) {
+                values.add(readString(in));
+            }
+            headers.put(name, values);
+        }
+        
+        byte[] body = new byte[readLength(in, 1)];
+        in.readFully(body);
+        
+        return new HTTPCacheEntry(uri, status, headers, body, storedAt, expiresAt);
+    }
+    
+    @Override
+    public void put(String key, HTTPCacheEntry entry) throws HTTPException {
+        try {
+            Path file = file(key);
+            Path temp = Files.createTempFile(directory, null, TEMP_SUFFIX);
+            try {
+                write(temp, entry);
+                long added = Files.size(temp);
+                long replaced = Files.exists(file) ? Files.size(file) : 0;
+                
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                if (size.addAndGet(added - replaced) > maxSize) evict();
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new HTTPException(e);
+        }
+    }
+    
+    private void write(Path temp, HTTPCacheEntry entry) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(VERSION);
+            writeString(out, entry.getURI());
+            out.writeInt(entry.getStatus());
+            out.writeLong(entry.getStoredAt());
+            out.writeLong(entry.getExpiresAt());
+            
+            out.writeInt(entry.getHeaders().size());
+            for (Map.Entry<String, List<String>> e : entry.getHeaders().entrySet()) {
+                writeString(out, e.getKey());
+                out.writeInt(e.getValue().size());
+                for (String v : e.getValue()) {
+                    writeString(out, v);
+                }
+            }
+            
+            out.writeInt(entry.getBody().length);
+            out.write(entry.getBody());
+        }
+    }
+    
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+    
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[readLength(in, 1)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    // a count or length read from the file, checked against the bytes left so a corrupt entry cannot allocate
+    private static int readLength(DataInputStream in, int minBytesPerItem) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > in.available() / minBytesPerItem) throw new IOException("Corrupt cache entry!");
+        return length;
+    }
+    
+    @Override
+    public void remove(String key) throws HTTPException {
+        Path file = file(key);
+        try {
+            long removed = Files.size(file);
+            if (Files.deleteIfExists(file)) size.addAndGet(-removed);
+        } catch (NoSuchFileException e) {
+            // nothing stored for the key
+        } catch (IOException e) {
+            throw new HTTPException(e);
+        }
+    }
+    
+    /**
+     * Returns the total size of the entry files.
+     *
+     * @return the size in bytes
+     */
+    public long getSize() {
+        return size.get();
+    }
+    
+    /**
+     * Returns the maximum total size of the entry files.
+     *
+     * @return the maximum size in bytes
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+    
+    private static void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {}
+    }
+    
+    private synchronized void evict() throws IOException {
+        List<Path> files = new ArrayList<>();
+        long total = countFiles(files);
+        if (total <= maxSize) {
+            size.set(total);
+            return;
+        }
+        
+        Map<Path, FileTime> times = new HashMap<>();
+        for (Path file : files) {
+            try {
+                times.put(file, Files.getLastModifiedTime(file));
+            } catch (NoSuchFileException e) {
+                times.put(file, FileTime.fromMillis(0));
+            }
+        }
+        files.sort(Comparator.comparing(times::get));
+        
+        for (Path file : files) {
+            if (total <= maxSize) break;
+            
+            try {
+                long length = Files.size(file);
+                if (Files.deleteIfExists(file)) total -= length;
+            } catch (NoSuchFileException e) {}
+        }
+        size.set(total);
+    }
+    
+    private long countFiles(List<Path> files) throws IOException {
+        long total = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file : stream) {
+                if (file.getFileName().toString().endsWith(TEMP_SUFFIX)) continue;
+                
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                    if (!attributes.isRegularFile()) continue;
+                    
+                    total += attributes.size();
+                    files.add(file);
+                } catch (NoSuchFileException e) {}
+            }
+        }
+        return total;
+    }
+    
+    private Path file(String key) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return directory.resolve(HexFormat.of().formatHex(hash));
+        } catch (NoSuchAlgorithmException e) {
+            throw new HTTPException(e);
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package fluff.http.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.URI;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import fluff.http.HTTPException;
+import fluff.http.body.HTTPBody;
+import fluff.http.body.HTTPBodyParser;
+import fluff.http.head.HTTPHead;
+import fluff.http.head.HTTPHeadBuilder;
+import fluff.http.request.HTTPRequest;
+import fluff.http.request.HTTPRequestMethod;
+import fluff.http.response.HTTPResponse;
+import fluff.http.response.HTTPResponseStatus;
+
+/**
+ * A private HTTP cache for GET requests, storing responses in an {@link HTTPCacheStore}.
+ * <p>
+ * Freshness follows the Cache-Control max-age and no-cache directives, falling back to the Expires header.
+ * Responses marked no-store, or varying on request headers, are never stored, and responses to requests carrying
+ * an Authorization header are only stored if marked public, s-maxage or must-revalidate, as required by RFC 9111.
+ * Stale entries are revalidated with If-None-Match and If-Modified-Since,
+ * and a {@link HTTPResponseStatus#NOT_MODIFIED} answer is served from the cache as the original response.
+ * Cacheable bodies are buffered in memory up to the maximum entry size.
+ * A failing store never fails a request, it is treated as a miss and the response is served without being stored.
+ */
+public class HTTPCache {
+    
+    /**
+     * The default maximum size of a cached body.
+     */
+    public static final int DEFAULT_MAX_ENTRY_SIZE = 1024 * 1024;
+    
+    private final HTTPCacheStore store;
+    private final int maxEntrySize;
+    
+    /**
+     * Constructs a new HTTPCache.
+     *
+     * @param store the store holding the cached responses
+     * @param maxEntrySize the maximum size of a cached body, in bytes
+     */
+    public HTTPCache(HTTPCacheStore store, int maxEntrySize) {
+        this.store = store;
+        this.maxEntrySize = maxEntrySize;
+    }
+    
+    /**
+     * Constructs a new HTTPCache with the default maximum entry size.
+     *
+     * @param store the store holding the cached responses
+     */
+    public HTTPCache(HTTPCacheStore store) {
+        this(store, DEFAULT_MAX_ENTRY_SIZE);
+    }
+    
+    /**
+     * Sends the request through the cache, serving it from the store when possible.
+     *
+     * @param request the request to send
+     * @return the HTTP response, either received or cached
+     * @throws HTTPException if an error occurs while sending the request
+     */
+    public HTTPResponse send(HTTPRequest request) throws HTTPException {
+        if (request.getMethod() != HTTPRequestMethod.GET) return request.execute();
+        
+        CacheControl requestControl = CacheControl.of(request.getHead().getHeaders());
+        if (requestControl.noStore) return request.execute();
+        
+        String key = request.getURI().toString();
+        HTTPCacheEntry entry = load(key);
+        if (entry != null && !requestControl.noCache && entry.isFresh(System.currentTimeMillis())) return createResponse(request, entry);
+        
+        HTTPResponse response = (entry != null ? conditional(request, entry) : request).execute();
+        long now = System.currentTimeMillis();
+        
+        if (response.getStatus() == HTTPResponseStatus.NOT_MODIFIED && entry != null) {
+            discard(response);
+            
+            Map<String, List<String>> headers = new HashMap<>(entry.getHeaders());
+            for (Map.Entry<String, List<String>> e : response.getHead().getHeaders().entrySet()) {
+                // the framing of the 304 does not describe the stored body, which may also have been decoded
+                if (isFramingHeader(e.getKey())) continue;
+                
+                headers.keySet().removeIf(name -> name.equalsIgnoreCase(e.getKey()));
+                headers.put(e.getKey(), e.getValue());
+            }
+            
+            HTTPCacheEntry refreshed = new HTTPCacheEntry(entry.getURI(), entry.getStatus(), headers, entry.getBody(), now, getExpiresAt(headers, now));
+            save(key, refreshed);
+            return createResponse(request, refreshed);
+        }
+        
+        Map<String, List<String>> headers = response.getHead().getHeaders();
+        boolean authorized = request.getHead().contains("Authorization");
+        if (response.getStatus() != HTTPResponseStatus.OK || !isStorable(headers, authorized, now)) {
+            if (entry != null) evict(key);
+            return rewrap(request, response, response.getBody());
+        }
+        
+        return store(request, key, response, now);
+    }
+    
+    private HTTPResponse store(HTTPRequest request, String key, HTTPResponse response, long now) throws HTTPException {
+        Map<String, List<String>> headers = new HashMap<>(response.getHead().getHeaders());
+        if (response.getDecoder() == null && response.getHead().getContentLength() > maxEntrySize) {
+            return rewrap(request, response, response.getBody());
+        }
+        
+        try {
+            InputStream in = response.getBody().getNoClose(HTTPBodyParser.INPUT_STREAM);
+            byte[] body = in.readNBytes(maxEntrySize + 1);
+            if (body.length > maxEntrySize) {
+                return rewrap(request, response, HTTPBody.of(HTTPBodyParser.INPUT_STREAM, new SequenceInputStream(new ByteArrayInputStream(body), in)));
+            }
+            in.close();
+            
+            // the stored body is decoded, so it no longer matches the encoding headers
+            if (response.getDecoder() != null) {
+                headers.keySet().removeIf(name -> name.equalsIgnoreCase("Content-Encoding") || name.equalsIgnoreCase("Content-Length"));
+            }
+            
+            HTTPCacheEntry entry = new HTTPCacheEntry(response.getURI().toString(), response.getStatus().getCode(), headers, body, now, getExpiresAt(headers, now));
+            save(key, entry);
+            return createResponse(request, entry);
+        } catch (IOException e) {
+            throw new HTTPException(e);
+        }
+    }
+    
+    private HTTPRequest conditional(HTTPRequest request, HTTPCacheEntry entry) {
+        String etag = entry.getHeader("ETag");
+        String lastModified = entry.getHeader("Last-Modified");
+        if (etag == null && lastModified == null) return request;
+        
+        HTTPHeadBuilder head = HTTPHead.builder().add(request.getHead());
+        // replaces validators the caller may have set, the header must not be sent twice
+        if (etag != null) head.remove("If-None-Match").add("If-None-Match", etag);
+        if (lastModified != null) head.remove("If-Modified-Since").add("If-Modified-Since", lastModified);
+        return request.copy().setHead(head.build());
+    }
+    
+    private HTTPCacheEntry load(String key) {
+        try {
+            return store.get(key);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+    
+    private void save(String key, HTTPCacheEntry entry) {
+        try {
+            store.put(key, entry);
+        } catch (RuntimeException e) {
+            // the response was received all the same, it is only not cached
+        }
+    }
+    
+    private void evict(String key) {
+        try {
+            store.remove(key);
+        } catch (RuntimeException e) {}
+    }
+    
+    private boolean isStorable(Map<String, List<String>> headers, boolean authorized, long now) {
+        CacheControl control = CacheControl.of(headers);
+        if (control.noStore || HTTPCacheEntry.getHeader(headers, "Vary") != null) return false;
+        // the key does not include the credentials, so only responses meant to be shared may be stored
+        if (authorized && !control.shared) return false;
+        
+        return getExpiresAt(headers, now) > now
+                || HTTPCacheEntry.getHeader(headers, "ETag") != null
+                || HTTPCacheEntry.getHeader(headers, "Last-Modified") != null;
+    }
+    
+    private long getExpiresAt(Map<String, List<String>> headers, long now) {
+        CacheControl control = CacheControl.of(headers);
+        if (control.noCache) return now;
+        
+        String ageHeader = HTTPCacheEntry.getHeader(headers, "Age");
+        long age = ageHeader != null ? parseSeconds(ageHeader) : 0;
+        if (control.maxAge >= 0) return now + (control.maxAge - Math.max(age, 0)) * 1000;
+        
+        long expires = parseDate(HTTPCacheEntry.getHeader(headers, "Expires"));
+        if (expires < 0) return now;
+        
+        long date = parseDate(HTTPCacheEntry.getHeader(headers, "Date"));
+        return date < 0 ? expires : now + (expires - date);
+    }
+    
+    private HTTPResponse createResponse(HTTPRequest request, HTTPCacheEntry entry) {
+        return new HTTPResponse(
+                request.getHTTP(),
+                request,
+                URI.create(entry.getURI()),
+                HTTPResponseStatus.byCode(entry.getStatus()),
+                HTTPHead.of(entry.getHeaders()),
+                HTTPBody.of(entry.getBody())
+                );
+    }
+    
+    private HTTPResponse rewrap(HTTPRequest request, HTTPResponse response, HTTPBody body) {
+        return new HTTPResponse(request.getHTTP(), request, response.getURI(), response.getStatus(), response.getHead(), body, response.getDecoder());
+    }
+    
+    private static boolean isFramingHeader(String name) {
+        return name.equalsIgnoreCase("Content-Length") || name.equalsIgnoreCase("Content-Encoding") || name.equalsIgnoreCase("Transfer-Encoding");
+    }
+    
+    private static void discard(HTTPResponse response) {
+        try {
+            response.getBody().get(HTTPBodyParser.INPUT_STREAM).close();
+        } catch (IOException e) {}
+    }
+    
+    private static long parseSeconds(String value) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+    
+    private static long parseDate(String value) {
+        if (value == null) return -1;
+        
+        try {
+            return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+    
+    private static class CacheControl {
+        
+        private boolean noStore;
+        private boolean noCache;
+        private boolean shared;
+        private long maxAge = -1;
+        
+        private static CacheControl of(Map<String, List<String>> headers) {
+            CacheControl control = new CacheControl();
+            for (String value : values(headers, "Cache-Control")) {
+                for (String directive : value.split(",")) {
+                    String d = directive.trim().toLowerCase(Locale.ROOT);
+                    
+                    if (d.equals("no-store")) control.noStore = true;
+                    else if (d.startsWith("no-cache")) control.noCache = true;
+                    else if (d.startsWith("max-age=")) control.maxAge = parseSeconds(d.substring(8).replace("\"", ""));
+                    else if (d.equals("public") || d.equals("must-revalidate") || d.startsWith("s-maxage=")) control.shared = true;
+                }
+            }
+            return control;
+        }
+        
+        private static List<String> values(Map<String, List<String>> headers, String name) {
+            List<String> list = new ArrayList<>();
+            for (Map.Entry<String, List<String>> e : headers.entrySet()) {
+                if (e.getKey().equalsIgnoreCase(name)) list.addAll(e.getValue());
+            }
+            return list;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package fluff.http.cache;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents a response stored in an HTTP cache, with its body fully buffered.
+ */
+public class HTTPCacheEntry {
+    
+    private final String uri;
+    private final int status;
+    private final Map<String, List<String>> headers;
+    private final byte[] body;
+    private final long storedAt;
+    private final long expiresAt;
+    
+    /**
+     * Constructs a new HTTPCacheEntry.
+     *
+     * @param uri the URI the response was received from
+     * @param status the status code of the response
+     * @param headers the headers of the response
+     * @param body the body content of the response
+     * @param storedAt the time the response was stored, in epoch milliseconds
+     * @param expiresAt the time the response becomes stale, in epoch milliseconds
+     */
+    public HTTPCacheEntry(String uri, int status, Map<String, List<String>> headers, byte[] body, long storedAt, long expiresAt) {
+        this.uri = uri;
+        this.status = status;
+        this.headers = Collections.unmodifiableMap(headers);
+        this.body = body;
+        this.storedAt = storedAt;
+        this.expiresAt = expiresAt;
+    }
+    
+    /**
+     * Returns whether the entry can be served without revalidation at the specified time.
+     *
+     * @param now the current time, in epoch milliseconds
+     * @return true if the entry is fresh, false otherwise
+     */
+    public boolean isFresh(long now) {
+        return now < expiresAt;
+    }
+    
+    /**
+     * Retrieves the first value of a header, ignoring the case of its name.
+     *
+     * @param name the name of the header
+     * @return the first value of the header, or null if the header is not present
+     */
+    public String getHeader(String name) {
+        return getHeader(headers, name);
+    }
+    
+    /**
+     * Returns the approximate memory footprint of the entry.
+     *
+     * @return the size in bytes
+     */
+    public long getSize() {
+        long size = body.length + uri.length();
+        for (Map.Entry<String, List<String>> e : headers.entrySet()) {
+            size += e.getKey().length();
+            for (String v : e.getValue()) {
+                size += v.length();
+            }
+        }
+        return size;
+    }
+    
+    /**
+     * Returns the URI the response was received from.
+     *
+     * @return the URI
+     */
+    public String getURI() {
+        return uri;
+    }
+    
+    /**
+     * Returns the status code of the response.
+     *
+     * @return the status code
+     */
+    public int getStatus() {
+        return status;
+    }
+    
+    /**
+     * Returns the headers of the response.
+     *
+     * @return an unmodifiable map of the headers
+     */
+    public Map<String, List<String>> getHeaders() {
+        return headers;
+    }
+    
+    /**
+     * Returns the body content of the response. The array must not be modified.
+     *
+     * @return the body content
+     */
+    public byte[] getBody() {
+        return body;
+    }
+    
+    /**
+     * Returns the time the response was stored.
+     *
+     * @return the time, in epoch milliseconds
+     */
+    public long getStoredAt() {
+        return storedAt;
+    }
+    
+    /**
+     * Returns the time the response becomes stale.
+     *
+     * @return the time, in epoch milliseconds
+     */
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+    
+    /**
+     * Retrieves the first value of a header from a header map, ignoring the case of its name.
+     *
+     * @param headers the header map
+     * @param name the name of the header
+     * @return the first value of the header, or null if the header is not present
+     */
+    static String getHeader(Map<String, List<String>> headers, String name) {
+        for (Map.Entry<String, List<String>> e : headers.entrySet()) {
+            if (e.getKey().equalsIgnoreCase(name) && !e.getValue().isEmpty()) {
+                return e.getValue().get(0);
+            }
+        }
+        return null;
+    }
+}
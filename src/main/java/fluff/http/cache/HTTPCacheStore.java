@@ -0,0 +1,37 @@
+package fluff.http.cache;
+
+import fluff.http.HTTPException;
+
+/**
+ * Interface representing a storage tier for cached HTTP responses.
+ * <p>
+ * Implementations must be thread-safe.
+ */
+public interface HTTPCacheStore {
+    
+    /**
+     * Retrieves the entry stored under the specified key.
+     *
+     * @param key the cache key
+     * @return the entry, or null if none is stored
+     * @throws HTTPException if the entry cannot be read
+     */
+    HTTPCacheEntry get(String key) throws HTTPException;
+    
+    /**
+     * Stores an entry under the specified key, replacing any previous entry.
+     *
+     * @param key the cache key
+     * @param entry the entry to store
+     * @throws HTTPException if the entry cannot be written
+     */
+    void put(String key, HTTPCacheEntry entry) throws HTTPException;
+    
+    /**
+     * Removes the entry stored under the specified key, if any.
+     *
+     * @param key the cache key
+     * @throws HTTPException if the entry cannot be removed
+     */
+    void remove(String key) throws HTTPException;
+}
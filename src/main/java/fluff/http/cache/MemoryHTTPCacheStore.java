@@ -0,0 +1,100 @@
+package fluff.http.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import fluff.http.HTTPException;
+
+/**
+ * An in-memory, least-recently-used cache store bounded by the total size of its entries.
+ * <p>
+ * An optional secondary store, such as a {@link DiskHTTPCacheStore}, receives every stored entry
+ * and serves the entries evicted from memory, which are promoted back on access.
+ */
+public class MemoryHTTPCacheStore implements HTTPCacheStore {
+    
+    private final Map<String, HTTPCacheEntry> entries = new LinkedHashMap<>(16, 0.75F, true);
+    private final long maxSize;
+    private final HTTPCacheStore secondary;
+    
+    private long size;
+    
+    /**
+     * Constructs a new MemoryHTTPCacheStore backed by a secondary store.
+     *
+     * @param maxSize the maximum total size of the entries kept in memory, in bytes
+     * @param secondary the secondary store, or null for none
+     */
+    public MemoryHTTPCacheStore(long maxSize, HTTPCacheStore secondary) {
+        this.maxSize = maxSize;
+        this.secondary = secondary;
+    }
+    
+    /**
+     * Constructs a new MemoryHTTPCacheStore.
+     *
+     * @param maxSize the maximum total size of the entries kept in memory, in bytes
+     */
+    public MemoryHTTPCacheStore(long maxSize) {
+        this(maxSize, null);
+    }
+    
+    @Override
+    public HTTPCacheEntry get(String key) throws HTTPException {
+        synchronized (entries) {
+            HTTPCacheEntry entry = entries.get(key);
+            if (entry != null) return entry;
+        }
+        if (secondary == null) return null;
+        
+        HTTPCacheEntry entry = secondary.get(key);
+        if (entry != null) putMemory(key, entry);
+        return entry;
+    }
+    
+    @Override
+    public void put(String key, HTTPCacheEntry entry) throws HTTPException {
+        putMemory(key, entry);
+        if (secondary != null) secondary.put(key, entry);
+    }
+    
+    @Override
+    public void remove(String key) throws HTTPException {
+        synchronized (entries) {
+            HTTPCacheEntry entry = entries.remove(key);
+            if (entry != null) size -= entry.getSize();
+        }
+        if (secondary != null) secondary.remove(key);
+    }
+    
+    /**
+     * Returns the total size of the entries kept in memory.
+     *
+     * @return the size in bytes
+     */
+    public long getSize() {
+        synchronized (entries) {
+            return size;
+        }
+    }
+    
+    private void putMemory(String key, HTTPCacheEntry entry) {
+        long entrySize = entry.getSize();
+        
+        synchronized (entries) {
+            HTTPCacheEntry previous = entries.remove(key);
+            if (previous != null) size -= previous.getSize();
+            if (entrySize > maxSize) return;
+            
+            entries.put(key, entry);
+            size += entrySize;
+            
+            Iterator<HTTPCacheEntry> it = entries.values().iterator();
+            while (size > maxSize && it.hasNext()) {
+                size -= it.next().getSize();
+                it.remove();
+            }
+        }
+    }
+}
@@ -1,49 +1,134 @@
 package fluff.http.head;
 
+import java.net.http.HttpHeaders;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import fluff.http.HTTPException;
 
 /**
  * Represents the headers of an HTTP request or response.
+ * <p>
+ * Header names are case-insensitive. The headers are kept in flat arrays indexed by an open-addressing
+ * table, so a lookup hashes the name once without allocating, and the value lists of immutable sources
+ * such as {@link HttpHeaders} are shared instead of copied.
+ * <p>
+ * Values parsed by an {@link HTTPHeader} are cached per header, so repeated typed lookups parse only once.
  */
 public class HTTPHead {
     
-    private final Map<String, List<String>> headers = new HashMap<>();
+    private static final long UNPARSED = Long.MIN_VALUE;
+    private static final HTTPHead EMPTY = new HTTPHead(0);
     
-    private HTTPHead(Map<String, List<String>> headers) {
-        this.headers.putAll(headers);
+    // names are canonicalized against these, so lookups by the usual literals compare by identity
+    private static final HTTPHead WELL_KNOWN = new HTTPHead(32);
+    
+    static {
+        for (String name : new String[] {
+                "Accept", "Accept-Encoding", "Accept-Language", "Accept-Ranges", "Age", "Authorization",
+                "Cache-Control", "Connection", "Content-Encoding", "Content-Length", "Content-Type", "Cookie",
+                "Date", "ETag", "Expect", "Expires", "Host", "If-Modified-Since", "If-None-Match",
+                "Last-Modified", "Location", "Pragma", "Range", "Retry-After", "Server", "Set-Cookie",
+                "Transfer-Encoding", "User-Agent", "Vary", "WWW-Authenticate"
+        }) {
+            WELL_KNOWN.put(name, List.of());
+        }
+    }
+    
+    private final String[] names;
+    private final List<String>[] values;
+    private final int[] slots;
+    private int size;
+    private Map<String, List<String>> view;
+    private volatile ConcurrentHashMap<HTTPHeader<?>, Parsed> cache;
+    private volatile long contentLength = UNPARSED;
+    
+    @SuppressWarnings("unchecked")
+    private HTTPHead(int capacity) {
+        this.names = new String[capacity];
+        this.values = new List[capacity];
+        this.slots = new int[capacity == 0 ? 1 : Integer.highestOneBit(capacity * 2 - 1) << 1];
+    }
+    
+    // only called while the head is being created
+    private void put(String name, List<String> list) {
+        int slot = slot(name);
+        int index = slots[slot] - 1;
+        
+        if (index < 0) {
+            names[size] = WELL_KNOWN != null ? canonical(name) : name;
+            values[size] = list;
+            slots[slot] = ++size;
+            return;
+        }
+        
+        List<String> merged = new ArrayList<>(values[index]);
+        merged.addAll(list);
+        values[index] = List.copyOf(merged);
+    }
+    
+    private static String canonical(String name) {
+        int index = WELL_KNOWN.indexOf(name);
+        return index >= 0 && WELL_KNOWN.names[index].equals(name) ? WELL_KNOWN.names[index] : name;
+    }
+    
+    // the slot holding the name, or the empty slot where it belongs
+    private int slot(String name) {
+        int mask = slots.length - 1;
+        int i = hash(name) & mask;
+        
+        while (true) {
+            int s = slots[i];
+            if (s == 0) return i;
+            
+            String n = names[s - 1];
+            if (n == name || n.equalsIgnoreCase(name)) return i;
+            
+            i = (i + 1) & mask;
+        }
+    }
+    
+    private int indexOf(String name) {
+        return slots[slot(name)] - 1;
     }
     
     /**
      * Retrieves all values for a given header.
      *
-     * @param header the name of the header
+     * @param header the name of the header, in any case
      * @return a list of all values associated with the header, or null if the header is not present
      */
     public List<String> getAll(String header) {
-        return headers.get(header);
+        int index = indexOf(header);
+        return index >= 0 ? values[index] : null;
     }
     
     /**
      * Retrieves the value of a header at a specific index.
      *
-     * @param header the name of the header
+     * @param header the name of the header, in any case
      * @param index the index of the value to retrieve
      * @return the value at the specified index, or null if the index is out of bounds
      */
     public String get(String header, int index) {
-        List<String> list = headers.get(header);
+        List<String> list = getAll(header);
         return list != null && list.size() > index ? list.get(index) : null;
     }
     
     /**
      * Retrieves the first value of a header.
      *
-     * @param header the name of the header
+     * @param header the name of the header, in any case
      * @return the first value of the header, or null if the header is not present
      */
     public String get(String header) {
@@ -52,22 +137,36 @@ public class HTTPHead {
     
     /**
      * Retrieves all values for a given header, parsed by the provided HTTPHeader.
+     * <p>
+     * The parsed values are cached per HTTPHeader, the returned list is unmodifiable.
      *
      * @param <V> the type of the value
      * @param header the HTTPHeader object used to parse the header values
-     * @return a list of all parsed values associated with the header
+     * @return a list of all parsed values associated with the header, empty if the header is not present
      * @throws HTTPException if the values cannot be parsed
      */
+    @SuppressWarnings("unchecked")
     public <V> List<V> getAll(HTTPHeader<V> header) throws HTTPException {
-        List<V> list = new ArrayList<>();
-        for (String v : headers.get(header.getName())) {
-            list.add(header.getValue(v));
+        Parsed parsed = parsed(header);
+        if (parsed == null) return List.of();
+        
+        List<Object> all = parsed.all;
+        if (all == null) {
+            Object[] array = new Object[parsed.values.length()];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = parsed.get(header, i);
+            }
+            // the parsers may return null, which List.of rejects
+            all = Collections.unmodifiableList(Arrays.asList(array));
+            parsed.all = all;
         }
-        return list;
+        return (List<V>) all;
     }
     
     /**
      * Retrieves the value of a header at a specific index, parsed by the provided HTTPHeader.
+     * <p>
+     * The parsed value is cached per HTTPHeader.
      *
      * @param <V> the type of the value
      * @param header the HTTPHeader object used to parse the header values
@@ -75,8 +174,12 @@ public class HTTPHead {
      * @return the parsed value at the specified index, or null if the index is out of bounds
      * @throws HTTPException if the value cannot be parsed
      */
+    @SuppressWarnings("unchecked")
     public <V> V get(HTTPHeader<V> header, int index) throws HTTPException {
-        return header.getValue(get(header.getName(), index));
+        Parsed parsed = parsed(header);
+        if (parsed == null || index < 0 || index >= parsed.values.length()) return null;
+        
+        return (V) parsed.get(header, index);
     }
     
     /**
@@ -91,13 +194,105 @@ public class HTTPHead {
         return get(header, 0);
     }
     
+    /**
+     * Returns the value of the Content-Length header, parsed without boxing and cached.
+     *
+     * @return the length of the content, or -1 if the header is not present or not a valid length
+     */
+    public long getContentLength() {
+        long length = contentLength;
+        if (length == UNPARSED) {
+            length = getLong("Content-Length", -1);
+            contentLength = length;
+        }
+        return length;
+    }
+    
+    /**
+     * Retrieves the first value of a header as a long, without boxing.
+     *
+     * @param header the name of the header, in any case
+     * @param defaultValue the value returned if the header is not present or not a valid non-negative number
+     * @return the value of the header, or the default value
+     */
+    public long getLong(String header, long defaultValue) {
+        String value = get(header);
+        if (value == null) return defaultValue;
+        
+        int start = 0;
+        int end = value.length();
+        while (start < end && isWhitespace(value.charAt(start))) start++;
+        while (end > start && isWhitespace(value.charAt(end - 1))) end--;
+        if (start == end || end - start > 18) return defaultValue;
+        
+        long result = 0;
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') return defaultValue;
+            
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+    
+    /**
+     * Retrieves the first value of a header as an int, without boxing.
+     *
+     * @param header the name of the header, in any case
+     * @param defaultValue the value returned if the header is not present or not a valid non-negative int
+     * @return the value of the header, or the default value
+     */
+    public int getInt(String header, int defaultValue) {
+        long value = getLong(header, -1);
+        return value >= 0 && value <= Integer.MAX_VALUE ? (int) value : defaultValue;
+    }
+    
+    /**
+     * Returns whether a header is present.
+     *
+     * @param header the name of the header, in any case
+     * @return true if the header is present, false otherwise
+     */
+    public boolean contains(String header) {
+        return indexOf(header) >= 0;
+    }
+    
+    /**
+     * Returns the number of distinct headers.
+     *
+     * @return the number of headers
+     */
+    public int size() {
+        return size;
+    }
+    
     /**
      * Retrieves all headers as a map.
+     * <p>
+     * The map is an unmodifiable view, whose lookups ignore the case of header names.
      *
      * @return a map of all headers and their values
      */
     public Map<String, List<String>> getHeaders() {
-        return headers;
+        if (view == null) view = new View();
+        return view;
+    }
+    
+    @Override
+    public String toString() {
+        return getHeaders().toString();
+    }
+    
+    private static int hash(String name) {
+        int h = 0;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c >= 'A' && c <= 'Z') c += 'a' - 'A';
+            else if (c >= 0x80) c = Character.toLowerCase(Character.toUpperCase(c));
+            
+            h = 31 * h + c;
+        }
+        return h ^ (h >>> 16);
     }
     
     /**
@@ -106,17 +301,43 @@ public class HTTPHead {
      * @return an empty HTTPHead object
      */
     public static HTTPHead of() {
-        return new HTTPHead(Map.of());
+        return EMPTY;
     }
     
     /**
      * Creates an HTTPHead object with the specified headers.
+     * <p>
+     * Headers whose names differ only in case are merged. Immutable value lists are shared, others are copied.
      *
      * @param headers a map of headers and their values
      * @return an HTTPHead object with the specified headers
      */
     public static HTTPHead of(Map<String, List<String>> headers) {
-        return new HTTPHead(headers);
+        if (headers.isEmpty()) return EMPTY;
+        
+        HTTPHead head = new HTTPHead(headers.size());
+        for (Map.Entry<String, List<String>> e : headers.entrySet()) {
+            head.put(e.getKey(), List.copyOf(e.getValue()));
+        }
+        return head;
+    }
+    
+    /**
+     * Creates an HTTPHead object over the specified HttpHeaders, sharing their immutable value lists.
+     *
+     * @param headers the headers of an HttpRequest or HttpResponse
+     * @return an HTTPHead object with the specified headers
+     */
+    public static HTTPHead of(HttpHeaders headers) {
+        Map<String, List<String>> map = headers.map();
+        if (map.isEmpty()) return EMPTY;
+        
+        // the lists of HttpHeaders are immutable already
+        HTTPHead head = new HTTPHead(map.size());
+        for (Map.Entry<String, List<String>> e : map.entrySet()) {
+            head.put(e.getKey(), e.getValue());
+        }
+        return head;
     }
     
     /**
@@ -127,4 +348,111 @@ public class HTTPHead {
     public static HTTPHeadBuilder builder() {
         return new HTTPHeadBuilder();
     }
+    
+    private Parsed parsed(HTTPHeader<?> header) {
+        int index = indexOf(header.getName());
+        if (index < 0) return null;
+        
+        ConcurrentHashMap<HTTPHeader<?>, Parsed> cache = this.cache;
+        if (cache == null) {
+            synchronized (this) {
+                if (this.cache == null) this.cache = new ConcurrentHashMap<>(4);
+                cache = this.cache;
+            }
+        }
+        
+        Parsed parsed = cache.get(header);
+        return parsed != null ? parsed : cache.computeIfAbsent(header, h -> new Parsed(values[index]));
+    }
+    
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t';
+    }
+    
+    // values are parsed on first access, a race only parses the same value twice
+    private static class Parsed {
+        
+        private static final Object PENDING = new Object();
+        
+        private final List<String> raw;
+        private final AtomicReferenceArray<Object> values;
+        private volatile List<Object> all;
+        
+        private Parsed(List<String> raw) {
+            this.raw = raw;
+            this.values = new AtomicReferenceArray<>(raw.size());
+            for (int i = 0; i < raw.size(); i++) {
+                values.lazySet(i, PENDING);
+            }
+        }
+        
+        private Object get(HTTPHeader<?> header, int index) throws HTTPException {
+            Object value = values.get(index);
+            if (value == PENDING) {
+                value = header.getValue(raw.get(index));
+                values.set(index, value);
+            }
+            return value;
+        }
+    }
+    
+    private class View extends AbstractMap<String, List<String>> {
+        
+        @Override
+        public List<String> get(Object key) {
+            return key instanceof String name ? getAll(name) : null;
+        }
+        
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String name && contains(name);
+        }
+        
+        @Override
+        public int size() {
+            return size;
+        }
+        
+        @Override
+        public Set<Map.Entry<String, List<String>>> entrySet() {
+            return new AbstractSet<>() {
+                
+                @Override
+                public Iterator<Map.Entry<String, List<String>>> iterator() {
+                    return new Iterator<>() {
+                        
+                        private int index;
+                        
+                        @Override
+                        public boolean hasNext() {
+                            return index < size;
+                        }
+                        
+                        @Override
+                        public Map.Entry<String, List<String>> next() {
+                            if (index >= size) throw new NoSuchElementException();
+                            
+                            int i = index++;
+                            return new AbstractMap.SimpleImmutableEntry<>(names[i], values[i]);
+                        }
+                    };
+                }
+                
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+        
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("{");
+            for (int i = 0; i < size; i++) {
+                if (i > 0) sb.append(", ");
+                sb.append(names[i]).append('=').append(values[i]);
+            }
+            return sb.append('}').toString();
+        }
+    }
 }
@@ -1,16 +1,18 @@
 package fluff.http.head;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * A builder class for constructing {@link HTTPHead} instances.
+ * <p>
+ * Header names are case-insensitive, values added under names differing only in case share one header.
  */
 public class HTTPHeadBuilder {
     
-    protected final Map<String, List<String>> headers = new HashMap<>();
+    protected final Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
     
     /**
      * Retrieves the list of values for a given header, or creates a new list if none exists.
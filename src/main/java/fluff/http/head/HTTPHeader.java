@@ -1,11 +1,17 @@
 package fluff.http.head;
 
+import java.util.List;
+
 import fluff.http.HTTPException;
 import fluff.http.head.value.HTTPHeaderParser;
 import fluff.http.head.value.HTTPHeaderValue;
 import fluff.http.head.value.parsers.MappedHTTPHeaderParser;
 import fluff.http.head.value.parsers.NullHTTPHeaderParser;
+import fluff.http.head.value.parsers.WeightedHTTPHeaderParser;
+import fluff.http.head.value.values.ContentEncodings;
 import fluff.http.head.value.values.MIMETypes;
+import fluff.http.head.value.values.MediaType;
+import fluff.http.head.value.values.WeightedValue;
 
 /**
  * Represents an HTTP header with a specific name and value parser.
@@ -29,11 +35,41 @@ public class HTTPHeader<V> {
      */
     public static final HTTPHeader<MIMETypes> ACCEPT = of("Accept", MIMETypes.values());
     
+    /**
+     * The Content-Length header.
+     */
+    public static final HTTPHeader<Long> CONTENT_LENGTH = of("Content-Length", HTTPHeaderParser.LONG);
+    
     /**
      * The Content-Type header.
      */
     public static final HTTPHeader<MIMETypes> CONTENT_TYPE = of("Content-Type", MIMETypes.values());
     
+    /**
+     * The Content-Type header, parsed with its parameters.
+     */
+    public static final HTTPHeader<MediaType> CONTENT_MEDIA_TYPE = of("Content-Type", MediaType::parse);
+    
+    /**
+     * The Accept header, parsed as media ranges ordered by their quality values.
+     */
+    public static final HTTPHeader<List<WeightedValue<MediaType>>> ACCEPT_MEDIA_TYPES = of("Accept", WeightedHTTPHeaderParser.MEDIA_TYPES);
+    
+    /**
+     * The Accept-Language header, parsed as language ranges ordered by their quality values.
+     */
+    public static final HTTPHeader<List<WeightedValue<String>>> ACCEPT_LANGUAGE = of("Accept-Language", WeightedHTTPHeaderParser.STRINGS);
+    
+    /**
+     * The Accept-Encoding header.
+     */
+    public static final HTTPHeader<ContentEncodings> ACCEPT_ENCODING = of("Accept-Encoding", ContentEncodings.values());
+    
+    /**
+     * The Content-Encoding header.
+     */
+    public static final HTTPHeader<ContentEncodings> CONTENT_ENCODING = of("Content-Encoding", ContentEncodings.values());
+    
     private final String name;
     private final HTTPHeaderParser<V> parser;
     
@@ -53,11 +89,13 @@ public class HTTPHeader<V> {
     
     /**
      * Converts the given value to a string representation suitable for HTTP headers.
+     * Lists are joined with commas.
      *
      * @param value the value to convert
      * @return the string representation of the value
      */
     public String getString(V value) {
+        if (value instanceof List<?> list) return joinList(list);
         return value instanceof HTTPHeaderValue v ? v.getHTTPHeaderValue() : String.valueOf(value);
     }
     
@@ -95,4 +133,13 @@ public class HTTPHeader<V> {
     public static <V> HTTPHeader<V> of(String name, HTTPHeaderParser<V> parser) {
         return new HTTPHeader<>(name, parser);
     }
+    
+    private static String joinList(List<?> list) {
+        StringBuilder sb = new StringBuilder();
+        for (Object element : list) {
+            if (sb.length() > 0) sb.append(", ");
+            sb.append(element instanceof HTTPHeaderValue v ? v.getHTTPHeaderValue() : String.valueOf(element));
+        }
+        return sb.toString();
+    }
 }
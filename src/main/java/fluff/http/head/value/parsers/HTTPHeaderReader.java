@@ -0,0 +1,232 @@
+package fluff.http.head.value.parsers;
+
+import fluff.http.HTTPException;
+
+/**
+ * A cursor over a header value, reading the tokens, quoted strings and separators
+ * shared by the structured header syntaxes.
+ * <p>
+ * The reader works on the value in place, only the tokens it returns are allocated.
+ */
+public class HTTPHeaderReader {
+    
+    private final String value;
+    private int position;
+    
+    /**
+     * Constructs a new HTTPHeaderReader at the start of the specified value.
+     *
+     * @param value the header value to read
+     */
+    public HTTPHeaderReader(String value) {
+        this.value = value;
+    }
+    
+    /**
+     * Returns the header value being read.
+     *
+     * @return the header value
+     */
+    public String getValue() {
+        return value;
+    }
+    
+    /**
+     * Returns the position of the cursor.
+     *
+     * @return the index of the next character to read
+     */
+    public int getPosition() {
+        return position;
+    }
+    
+    /**
+     * Returns whether the whole value has been read.
+     *
+     * @return true if no characters are left, false otherwise
+     */
+    public boolean isEnd() {
+        return position >= value.length();
+    }
+    
+    /**
+     * Returns the next character without consuming it.
+     *
+     * @return the next character, or -1 if the whole value has been read
+     */
+    public int peek() {
+        return position < value.length() ? value.charAt(position) : -1;
+    }
+    
+    /**
+     * Consumes the next character.
+     *
+     * @return the consumed character
+     * @throws HTTPException if the whole value has been read
+     */
+    public char next() throws HTTPException {
+        if (isEnd()) throw error("Unexpected end");
+        return value.charAt(position++);
+    }
+    
+    /**
+     * Consumes the specified number of characters.
+     *
+     * @param count the number of characters
+     * @throws HTTPException if fewer characters are left
+     */
+    public void skip(int count) throws HTTPException {
+        if (count > value.length() - position) throw error("Unexpected end");
+        position += count;
+    }
+    
+    /**
+     * Consumes the next character if it is the specified one.
+     *
+     * @param c the expected character
+     * @return true if the character was consumed, false otherwise
+     */
+    public boolean accept(char c) {
+        if (peek() != c) return false;
+        
+        position++;
+        return true;
+    }
+    
+    /**
+     * Consumes the next character, which must be the specified one.
+     *
+     * @param c the expected character
+     * @throws HTTPException if the next character is a different one
+     */
+    public void expect(char c) throws HTTPException {
+        if (!accept(c)) throw error("Expected '" + c + "'");
+    }
+    
+    /**
+     * Skips optional whitespace, spaces and horizontal tabs.
+     *
+     * @return this reader
+     */
+    public HTTPHeaderReader skipWhitespace() {
+        while (position < value.length()) {
+            char c = value.charAt(position);
+            if (c != ' ' && c != '\t') break;
+            
+            position++;
+        }
+        return this;
+    }
+    
+    /**
+     * Skips spaces only, as required between structured field members.
+     *
+     * @return this reader
+     */
+    public HTTPHeaderReader skipSpaces() {
+        while (position < value.length() && value.charAt(position) == ' ') {
+            position++;
+        }
+        return this;
+    }
+    
+    /**
+     * Reads an RFC 9110 token.
+     *
+     * @return the token, never empty
+     * @throws HTTPException if no token starts at the cursor
+     */
+    public String readToken() throws HTTPException {
+        int start = position;
+        while (position < value.length() && isTokenChar(value.charAt(position))) {
+            position++;
+        }
+        
+        if (start == position) throw error("Expected a token");
+        return value.substring(start, position);
+    }
+    
+    /**
+     * Reads an RFC 9110 quoted string, resolving its escapes.
+     *
+     * @return the content of the quoted string
+     * @throws HTTPException if no valid quoted string starts at the cursor
+     */
+    public String readQuotedString() throws HTTPException {
+        expect('"');
+        
+        int start = position;
+        StringBuilder sb = null;
+        while (true) {
+            char c = next();
+            if (c == '"') break;
+            
+            if (c == '\\') {
+                if (sb == null) sb = new StringBuilder().append(value, start, position - 1);
+                sb.append(next());
+            } else if (sb != null) {
+                sb.append(c);
+            }
+        }
+        
+        return sb != null ? sb.toString() : value.substring(start, position - 1);
+    }
+    
+    /**
+     * Reads either a token or a quoted string, as allowed for parameter values.
+     *
+     * @return the token or the content of the quoted string
+     * @throws HTTPException if neither starts at the cursor
+     */
+    public String readTokenOrQuotedString() throws HTTPException {
+        return peek() == '"' ? readQuotedString() : readToken();
+    }
+    
+    /**
+     * Skips to the next top-level comma, ignoring commas inside quoted strings.
+     * The comma itself is not consumed.
+     *
+     * @return this reader
+     */
+    public HTTPHeaderReader skipElement() {
+        boolean quoted = false;
+        while (position < value.length()) {
+            char c = value.charAt(position);
+            if (!quoted && c == ',') break;
+            
+            if (c == '"') quoted = !quoted;
+            else if (c == '\\' && quoted) position++;
+            position++;
+        }
+        position = Math.min(position, value.length());
+        return this;
+    }
+    
+    /**
+     * Creates an exception describing a syntax error at the cursor.
+     *
+     * @param message the description of the error
+     * @return the exception
+     */
+    public HTTPException error(String message) {
+        return new HTTPException(message + " at " + position + " in header value: " + value);
+    }
+    
+    /**
+     * Returns whether the specified character may appear in an RFC 9110 token.
+     *
+     * @param c the character
+     * @return true if the character is a tchar, false otherwise
+     */
+    public static boolean isTokenChar(char c) {
+        if (c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9') return true;
+        
+        switch (c) {
+            case '!': case '#': case '$': case '%': case '&': case '\'': case '*':
+            case '+': case '-': case '.': case '^': case '_': case '`': case '|': case '~':
+                return true;
+            default:
+                return false;
+        }
+    }
+}
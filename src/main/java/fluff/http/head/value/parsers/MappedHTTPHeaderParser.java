@@ -1,6 +1,7 @@
 package fluff.http.head.value.parsers;
 
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 
 import fluff.http.HTTPException;
@@ -9,6 +10,8 @@ import fluff.http.head.value.HTTPHeaderParser;
 
 /**
  * A parser that maps HTTP header values to a specific type of {@link HTTPHeaderValue}.
+ * <p>
+ * Values are matched ignoring case, parameters such as the charset of a media type are ignored.
  *
  * @param <V> the type of {@link HTTPHeaderValue} this parser handles
  */
@@ -29,6 +32,14 @@ public class MappedHTTPHeaderParser<V extends HTTPHeaderValue> implements HTTPHe
 	
 	@Override
 	public V parse(String value) throws HTTPException {
-		return map.get(value);
+		if (value == null) return null;
+		
+		V v = map.get(value);
+		if (v != null) return v;
+		
+		int semicolon = value.indexOf(';');
+		String key = (semicolon >= 0 ? value.substring(0, semicolon) : value).strip();
+		v = map.get(key);
+		return v != null ? v : map.get(key.toLowerCase(Locale.ROOT));
 	}
 }
@@ -0,0 +1,271 @@
+package fluff.http.head.value.parsers;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import fluff.http.HTTPException;
+import fluff.http.head.value.HTTPHeaderParser;
+import fluff.http.head.value.values.StructuredField.InnerList;
+import fluff.http.head.value.values.StructuredField.Item;
+import fluff.http.head.value.values.StructuredField.Member;
+import fluff.http.head.value.values.StructuredField.Token;
+
+/**
+ * A parser for RFC 8941 structured fields, following the parsing algorithms of the RFC.
+ * <p>
+ * Values of fields split over several header lines must be joined with commas before parsing.
+ *
+ * @param <V> the type of the parsed field
+ */
+public class StructuredFieldParser<V> implements HTTPHeaderParser<V> {
+    
+    /**
+     * Parses an item field, e.g. the Priority header value "u=1".
+     */
+    public static final StructuredFieldParser<Item> ITEM = new StructuredFieldParser<>(Kind.ITEM);
+    
+    /**
+     * Parses a list field.
+     */
+    public static final StructuredFieldParser<List<Member>> LIST = new StructuredFieldParser<>(Kind.LIST);
+    
+    /**
+     * Parses a dictionary field, e.g. the Priority header value "u=1, i".
+     */
+    public static final StructuredFieldParser<Map<String, Member>> DICTIONARY = new StructuredFieldParser<>(Kind.DICTIONARY);
+    
+    private static final Map<String, Object> NO_PARAMETERS = Collections.emptyMap();
+    
+    private final Kind kind;
+    
+    private StructuredFieldParser(Kind kind) {
+        this.kind = kind;
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public V parse(String value) throws HTTPException {
+        if (value == null) return null;
+        
+        HTTPHeaderReader reader = new HTTPHeaderReader(value);
+        reader.skipSpaces();
+        
+        Object field = switch (kind) {
+            case ITEM -> readItem(reader);
+            case LIST -> readList(reader);
+            case DICTIONARY -> readDictionary(reader);
+        };
+        
+        reader.skipSpaces();
+        if (!reader.isEnd()) throw reader.error("Unexpected character");
+        return (V) field;
+    }
+    
+    private static List<Member> readList(HTTPHeaderReader reader) throws HTTPException {
+        List<Member> members = new ArrayList<>();
+        while (!reader.isEnd()) {
+            members.add(readMember(reader));
+            if (!nextMember(reader)) break;
+        }
+        return Collections.unmodifiableList(members);
+    }
+    
+    private static Map<String, Member> readDictionary(HTTPHeaderReader reader) throws HTTPException {
+        Map<String, Member> members = new LinkedHashMap<>();
+        while (!reader.isEnd()) {
+            String key = readKey(reader);
+            
+            Member member;
+            if (reader.accept('=')) {
+                member = readMember(reader);
+            } else {
+                member = new Item(Boolean.TRUE, readParameters(reader));
+            }
+            // a repeated key overwrites the value, but keeps the position
+            members.put(key, member);
+            
+            if (!nextMember(reader)) break;
+        }
+        return Collections.unmodifiableMap(members);
+    }
+    
+    private static boolean nextMember(HTTPHeaderReader reader) throws HTTPException {
+        reader.skipWhitespace();
+        if (reader.isEnd()) return false;
+        
+        reader.expect(',');
+        reader.skipWhitespace();
+        if (reader.isEnd()) throw reader.error("Trailing comma");
+        return true;
+    }
+    
+    private static Member readMember(HTTPHeaderReader reader) throws HTTPException {
+        return reader.peek() == '(' ? readInnerList(reader) : readItem(reader);
+    }
+    
+    private static InnerList readInnerList(HTTPHeaderReader reader) throws HTTPException {
+        reader.expect('(');
+        
+        List<Item> items = new ArrayList<>();
+        while (true) {
+            reader.skipSpaces();
+            if (reader.accept(')')) break;
+            
+            items.add(readItem(reader));
+            int c = reader.peek();
+            if (c != ' ' && c != ')') throw reader.error("Expected ' ' or ')'");
+        }
+        return new InnerList(items, readParameters(reader));
+    }
+    
+    private static Item readItem(HTTPHeaderReader reader) throws HTTPException {
+        Object value = readBareItem(reader);
+        return new Item(value, readParameters(reader));
+    }
+    
+    private static Map<String, Object> readParameters(HTTPHeaderReader reader) throws HTTPException {
+        Map<String, Object> parameters = null;
+        while (reader.accept(';')) {
+            reader.skipSpaces();
+            String key = readKey(reader);
+            Object value = reader.accept('=') ? readBareItem(reader) : Boolean.TRUE;
+            
+            if (parameters == null) parameters = new LinkedHashMap<>(4);
+            parameters.put(key, value);
+        }
+        return parameters != null ? Collections.unmodifiableMap(parameters) : NO_PARAMETERS;
+    }
+    
+    private static String readKey(HTTPHeaderReader reader) throws HTTPException {
+        String value = reader.getValue();
+        int start = reader.getPosition();
+        
+        int c = reader.peek();
+        if (c != '*' && (c < 'a' || c > 'z')) throw reader.error("Expected a key");
+        
+        int end = start + 1;
+        while (end < value.length()) {
+            char k = value.charAt(end);
+            if (!(k >= 'a' && k <= 'z' || k >= '0' && k <= '9' || k == '_' || k == '-' || k == '.' || k == '*')) break;
+            end++;
+        }
+        
+        reader.skip(end - start);
+        return value.substring(start, end);
+    }
+    
+    private static Object readBareItem(HTTPHeaderReader reader) throws HTTPException {
+        int c = reader.peek();
+        if (c == '-' || c >= '0' && c <= '9') return readNumber(reader);
+        if (c == '"') return readString(reader);
+        if (c == '*' || c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z') return readToken(reader);
+        if (c == ':') return readByteSequence(reader);
+        if (c == '?') return readBoolean(reader);
+        
+        throw reader.error("Expected a bare item");
+    }
+    
+    private static Object readNumber(HTTPHeaderReader reader) throws HTTPException {
+        boolean negative = reader.accept('-');
+        
+        long integer = 0;
+        int digits = 0;
+        long fraction = 0;
+        int fractionDigits = -1;
+        
+        while (true) {
+            int c = reader.peek();
+            if (c >= '0' && c <= '9') {
+                reader.next();
+                if (fractionDigits >= 0) {
+                    fraction = fraction * 10 + (c - '0');
+                    if (++fractionDigits > 3) throw reader.error("Too many fraction digits");
+                } else {
+                    integer = integer * 10 + (c - '0');
+                    if (++digits > 15) throw reader.error("Integer too long");
+                }
+            } else if (c == '.' && fractionDigits < 0 && digits > 0) {
+                if (digits > 12) throw reader.error("Decimal too long");
+                reader.next();
+                fractionDigits = 0;
+            } else {
+                break;
+            }
+        }
+        
+        if (digits == 0) throw reader.error("Expected a digit");
+        if (fractionDigits == 0) throw reader.error("Expected a fraction digit");
+        
+        if (fractionDigits < 0) return negative ? -integer : integer;
+        
+        double decimal = integer + fraction / Math.pow(10, fractionDigits);
+        return negative ? -decimal : decimal;
+    }
+    
+    private static String readString(HTTPHeaderReader reader) throws HTTPException {
+        reader.expect('"');
+        
+        StringBuilder sb = new StringBuilder();
+        while (true) {
+            char c = reader.next();
+            if (c == '"') return sb.toString();
+            
+            if (c == '\\') {
+                c = reader.next();
+                if (c != '"' && c != '\\') throw reader.error("Invalid escape");
+            } else if (c < 0x20 || c > 0x7E) {
+                throw reader.error("Invalid character in string");
+            }
+            sb.append(c);
+        }
+    }
+    
+    private static Token readToken(HTTPHeaderReader reader) throws HTTPException {
+        String value = reader.getValue();
+        int start = reader.getPosition();
+        
+        int end = start + 1;
+        while (end < value.length()) {
+            char c = value.charAt(end);
+            if (!HTTPHeaderReader.isTokenChar(c) && c != ':' && c != '/') break;
+            end++;
+        }
+        
+        reader.skip(end - start);
+        return new Token(value.substring(start, end));
+    }
+    
+    private static byte[] readByteSequence(HTTPHeaderReader reader) throws HTTPException {
+        reader.expect(':');
+        
+        String value = reader.getValue();
+        int start = reader.getPosition();
+        int end = value.indexOf(':', start);
+        if (end < 0) throw reader.error("Unterminated byte sequence");
+        
+        reader.skip(end + 1 - start);
+        try {
+            return Base64.getDecoder().decode(value.substring(start, end));
+        } catch (IllegalArgumentException e) {
+            throw new HTTPException("Invalid byte sequence in header value: " + value, e);
+        }
+    }
+    
+    private static Boolean readBoolean(HTTPHeaderReader reader) throws HTTPException {
+        reader.expect('?');
+        if (reader.accept('1')) return Boolean.TRUE;
+        if (reader.accept('0')) return Boolean.FALSE;
+        
+        throw reader.error("Expected a boolean");
+    }
+    
+    private enum Kind {
+        ITEM,
+        LIST,
+        DICTIONARY
+    }
+}
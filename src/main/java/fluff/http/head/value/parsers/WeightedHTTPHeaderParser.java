@@ -0,0 +1,123 @@
+package fluff.http.head.value.parsers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import fluff.http.HTTPException;
+import fluff.http.head.value.HTTPHeaderParser;
+import fluff.http.head.value.values.MediaType;
+import fluff.http.head.value.values.WeightedValue;
+
+/**
+ * A parser for comma separated lists whose elements carry a quality value, such as the Accept,
+ * Accept-Encoding and Accept-Language headers.
+ * <p>
+ * The elements are returned by descending weight, elements of equal weight keep their order.
+ * The q parameter and any parameters after it are removed before the element is parsed.
+ *
+ * @param <V> the type of the elements
+ */
+public class WeightedHTTPHeaderParser<V> implements HTTPHeaderParser<List<WeightedValue<V>>> {
+    
+    /**
+     * Parses the media ranges of the Accept header.
+     */
+    public static final WeightedHTTPHeaderParser<MediaType> MEDIA_TYPES = new WeightedHTTPHeaderParser<>(MediaType::parse);
+    
+    /**
+     * Parses the elements as strings, e.g. the languages of the Accept-Language header.
+     */
+    public static final WeightedHTTPHeaderParser<String> STRINGS = new WeightedHTTPHeaderParser<>(HTTPHeaderParser.STRING);
+    
+    private static final Comparator<WeightedValue<?>> BY_WEIGHT = (a, b) -> Integer.compare(b.getWeight(), a.getWeight());
+    
+    private final HTTPHeaderParser<V> parser;
+    
+    /**
+     * Constructs a new WeightedHTTPHeaderParser.
+     *
+     * @param parser the parser for the elements, without their quality value
+     */
+    public WeightedHTTPHeaderParser(HTTPHeaderParser<V> parser) {
+        this.parser = parser;
+    }
+    
+    @Override
+    public List<WeightedValue<V>> parse(String value) throws HTTPException {
+        if (value == null) return null;
+        
+        List<WeightedValue<V>> list = new ArrayList<>();
+        HTTPHeaderReader reader = new HTTPHeaderReader(value);
+        boolean sorted = true;
+        
+        while (!reader.skipWhitespace().isEnd()) {
+            // empty elements are allowed by the list syntax
+            if (reader.accept(',')) continue;
+            
+            int start = reader.getPosition();
+            int end = -1;
+            int weight = WeightedValue.MAX_WEIGHT;
+            
+            while (!reader.isEnd() && reader.peek() != ',') {
+                int c = reader.peek();
+                if (c == '"') {
+                    reader.readQuotedString();
+                    continue;
+                }
+                if (c != ';') {
+                    reader.next();
+                    continue;
+                }
+                
+                int semicolon = reader.getPosition();
+                reader.next();
+                reader.skipWhitespace();
+                if (end < 0 && (reader.peek() == 'q' || reader.peek() == 'Q')) {
+                    reader.next();
+                    if (reader.skipWhitespace().accept('=')) {
+                        end = semicolon;
+                        weight = readWeight(reader.skipWhitespace());
+                    }
+                }
+            }
+            
+            String element = value.substring(start, end >= 0 ? end : reader.getPosition()).strip();
+            WeightedValue<V> weighted = new WeightedValue<>(parser.parse(element), weight);
+            if (!list.isEmpty() && list.get(list.size() - 1).getWeight() < weight) sorted = false;
+            list.add(weighted);
+        }
+        
+        // the sort is stable, so equal weights keep the order of the header
+        if (!sorted) list.sort(BY_WEIGHT);
+        return Collections.unmodifiableList(list);
+    }
+    
+    /**
+     * Reads a quality value as its weight in thousandths.
+     *
+     * @param reader the reader positioned at the quality value
+     * @return the weight, between 0 and 1000
+     * @throws HTTPException if the quality value is invalid
+     */
+    public static int readWeight(HTTPHeaderReader reader) throws HTTPException {
+        int first = reader.peek();
+        if (first != '0' && first != '1') throw reader.error("Invalid quality value");
+        reader.next();
+        
+        int weight = (first - '0') * 1000;
+        if (reader.accept('.')) {
+            for (int scale = 100; scale > 0; scale /= 10) {
+                int c = reader.peek();
+                if (c < '0' || c > '9') break;
+                
+                reader.next();
+                weight += (c - '0') * scale;
+            }
+        }
+        
+        if (weight > WeightedValue.MAX_WEIGHT) throw reader.error("Invalid quality value");
+        return weight;
+    }
+}
@@ -0,0 +1,130 @@
+package fluff.http.head.value.values;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import fluff.http.head.value.HTTPHeaderValue;
+
+/**
+ * Enum representing the content codings that can be used in the Content-Encoding and Accept-Encoding headers.
+ */
+public enum ContentEncodings implements HTTPHeaderValue {
+    IDENTITY("identity"),
+    GZIP("gzip"),
+    DEFLATE("deflate");
+    
+    private final String value;
+    
+    private ContentEncodings(String value) {
+        this.value = value;
+    }
+    
+    @Override
+    public String getHTTPHeaderValue() {
+        return value;
+    }
+    
+    /**
+     * Wraps the specified stream to decode content encoded with this coding.
+     *
+     * @param in the encoded input stream
+     * @return the decoded input stream
+     * @throws IOException if an I/O error occurs
+     */
+    public InputStream decode(InputStream in) throws IOException {
+        switch (this) {
+            case GZIP:
+                return new GZIPInputStream(in, 8192);
+            case DEFLATE:
+                // servers commonly send raw deflate data instead of the zlib format required by the spec
+                BufferedInputStream buffered = new BufferedInputStream(in, 8192);
+                buffered.mark(2);
+                int b0 = buffered.read();
+                int b1 = buffered.read();
+                buffered.reset();
+                
+                boolean zlib = b0 != -1 && b1 != -1 && (b0 & 0x0F) == 8 && ((b0 << 8) | b1) % 31 == 0;
+                Inflater inflater = new Inflater(!zlib);
+                // an InflaterInputStream only ends the inflaters it creates itself
+                return new InflaterInputStream(buffered, inflater, 8192) {
+                    
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            inflater.end();
+                        }
+                    }
+                };
+            default:
+                return in;
+        }
+    }
+    
+    /**
+     * Wraps the specified stream to encode content with this coding.
+     *
+     * @param out the output stream receiving the encoded content
+     * @return the encoding output stream
+     * @throws IOException if an I/O error occurs
+     */
+    public OutputStream encode(OutputStream out) throws IOException {
+        switch (this) {
+            case GZIP:
+                return new GZIPOutputStream(out, 8192);
+            case DEFLATE:
+                return new DeflaterOutputStream(out);
+            default:
+                return out;
+        }
+    }
+    
+    /**
+     * Returns the ContentEncodings corresponding to the given coding name, ignoring case.
+     *
+     * @param name the coding name
+     * @return the corresponding ContentEncodings, or null if not supported
+     */
+    public static ContentEncodings byName(String name) {
+        String lower = name.trim().toLowerCase(Locale.ROOT);
+        if (lower.equals("x-gzip")) return GZIP;
+        
+        for (ContentEncodings encoding : values()) {
+            if (encoding.value.equals(lower)) {
+                return encoding;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Parses the codings listed in Content-Encoding header values, in the order they were applied.
+     *
+     * @param values the header values
+     * @return the non-identity codings, or null if any of them is not supported
+     */
+    public static List<ContentEncodings> parse(List<String> values) {
+        List<ContentEncodings> list = new ArrayList<>();
+        for (String value : values) {
+            for (String name : value.split(",")) {
+                if (name.isBlank()) continue;
+                
+                ContentEncodings encoding = byName(name);
+                if (encoding == null) return null;
+                if (encoding != IDENTITY) list.add(encoding);
+            }
+        }
+        return list;
+    }
+}
@@ -0,0 +1,362 @@
+package fluff.http.head.value.values;
+
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+import fluff.http.HTTPException;
+import fluff.http.head.value.HTTPHeaderValue;
+import fluff.http.head.value.parsers.HTTPHeaderReader;
+
+/**
+ * An immutable media type with its parameters, as used in the Content-Type and Accept headers.
+ * <p>
+ * Type, subtype and parameter names are lowercase. Parsed media types are cached by their header value,
+ * so the values repeated across responses are parsed once and shared.
+ */
+public final class MediaType implements HTTPHeaderValue {
+    
+    private static final int CACHE_SIZE = 256;
+    private static final ConcurrentHashMap<String, MediaType> CACHE = new ConcurrentHashMap<>();
+    private static final String[] NO_PARAMETERS = new String[0];
+    
+    private final String type;
+    private final String subtype;
+    // name and value pairs, in the order they were given
+    private final String[] parameters;
+    // computed lazily, a race only computes them twice
+    private String value;
+    private Charset charset;
+    
+    private MediaType(String type, String subtype, String[] parameters) {
+        this.type = type;
+        this.subtype = subtype;
+        this.parameters = parameters;
+    }
+    
+    /**
+     * Returns the type, e.g. "text" for text/html.
+     *
+     * @return the lowercase type
+     */
+    public String getType() {
+        return type;
+    }
+    
+    /**
+     * Returns the subtype, e.g. "html" for text/html.
+     *
+     * @return the lowercase subtype
+     */
+    public String getSubtype() {
+        return subtype;
+    }
+    
+    /**
+     * Returns the type and subtype without parameters, e.g. "text/html".
+     *
+     * @return the lowercase essence of the media type
+     */
+    public String getEssence() {
+        return type + "/" + subtype;
+    }
+    
+    /**
+     * Returns the number of parameters.
+     *
+     * @return the number of parameters
+     */
+    public int getParameterCount() {
+        return parameters.length / 2;
+    }
+    
+    /**
+     * Returns the name of the parameter at the specified index.
+     *
+     * @param index the index of the parameter
+     * @return the lowercase name of the parameter
+     */
+    public String getParameterName(int index) {
+        return parameters[index * 2];
+    }
+    
+    /**
+     * Returns the value of the parameter at the specified index.
+     *
+     * @param index the index of the parameter
+     * @return the value of the parameter, unquoted
+     */
+    public String getParameterValue(int index) {
+        return parameters[index * 2 + 1];
+    }
+    
+    /**
+     * Returns the value of the specified parameter.
+     *
+     * @param name the name of the parameter, in any case
+     * @return the value of the parameter, or null if it is not present
+     */
+    public String getParameter(String name) {
+        for (int i = 0; i < parameters.length; i += 2) {
+            if (parameters[i].equalsIgnoreCase(name)) return parameters[i + 1];
+        }
+        return null;
+    }
+    
+    /**
+     * Returns the charset named by the charset parameter.
+     *
+     * @return the charset, or null if the parameter is not present or names an unsupported charset
+     */
+    public Charset getCharset() {
+        Charset charset = this.charset;
+        if (charset != null) return charset;
+        
+        String name = getParameter("charset");
+        if (name == null) return null;
+        
+        try {
+            charset = Charset.forName(name);
+        } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+            return null;
+        }
+        this.charset = charset;
+        return charset;
+    }
+    
+    /**
+     * Returns whether the type or the subtype is the wildcard "*".
+     *
+     * @return true if this is a media range, false otherwise
+     */
+    public boolean isWildcard() {
+        return type.equals("*") || subtype.equals("*");
+    }
+    
+    /**
+     * Returns whether this media type, as a media range, includes the specified media type.
+     * Parameters are ignored.
+     *
+     * @param other the media type to test
+     * @return true if the other media type is included, false otherwise
+     */
+    public boolean includes(MediaType other) {
+        if (type.equals("*")) return true;
+        if (!type.equals(other.type)) return false;
+        
+        return subtype.equals("*") || subtype.equals(other.subtype);
+    }
+    
+    /**
+     * Returns whether this media type has the same type and subtype as the specified one.
+     *
+     * @param type the MIME type
+     * @return true if the essences are equal, false otherwise
+     */
+    public boolean is(MIMETypes type) {
+        String essence = type.getHTTPHeaderValue();
+        int slash = this.type.length();
+        
+        return essence.length() == slash + 1 + subtype.length()
+                && essence.charAt(slash) == '/'
+                && essence.startsWith(this.type)
+                && essence.endsWith(subtype);
+    }
+    
+    /**
+     * Returns the MIME type with the same type and subtype.
+     *
+     * @return the MIME type, or null if it is not one of {@link MIMETypes}
+     */
+    public MIMETypes getMIMEType() {
+        for (MIMETypes t : MIMETypes.values()) {
+            if (is(t)) return t;
+        }
+        return null;
+    }
+    
+    /**
+     * Returns a media type with the specified parameter added or replaced.
+     *
+     * @param name the name of the parameter
+     * @param value the value of the parameter
+     * @return the new media type
+     */
+    public MediaType withParameter(String name, String value) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        
+        String[] parameters = this.parameters;
+        int index = -1;
+        for (int i = 0; i < parameters.length; i += 2) {
+            if (parameters[i].equals(lower)) index = i;
+        }
+        
+        if (index < 0) {
+            parameters = Arrays.copyOf(parameters, parameters.length + 2);
+            index = parameters.length - 2;
+        } else {
+            parameters = parameters.clone();
+        }
+        parameters[index] = lower;
+        parameters[index + 1] = value;
+        return new MediaType(type, subtype, parameters);
+    }
+    
+    /**
+     * Returns a media type with the charset parameter set.
+     *
+     * @param charset the charset
+     * @return the new media type
+     */
+    public MediaType withCharset(Charset charset) {
+        return withParameter("charset", charset.name());
+    }
+    
+    @Override
+    public String getHTTPHeaderValue() {
+        String value = this.value;
+        if (value != null) return value;
+        
+        StringBuilder sb = new StringBuilder(type).append('/').append(subtype);
+        for (int i = 0; i < parameters.length; i += 2) {
+            sb.append(';').append(parameters[i]).append('=');
+            appendValue(sb, parameters[i + 1]);
+        }
+        value = sb.toString();
+        this.value = value;
+        return value;
+    }
+    
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof MediaType other)) return false;
+        if (!type.equals(other.type) || !subtype.equals(other.subtype) || parameters.length != other.parameters.length) return false;
+        
+        for (int i = 0; i < parameters.length; i += 2) {
+            String v = other.getParameter(parameters[i]);
+            if (v == null || !v.equals(parameters[i + 1])) return false;
+        }
+        return true;
+    }
+    
+    @Override
+    public int hashCode() {
+        int hash = type.hashCode() * 31 + subtype.hashCode();
+        for (int i = 0; i < parameters.length; i += 2) {
+            hash += parameters[i].hashCode() ^ parameters[i + 1].hashCode();
+        }
+        return hash;
+    }
+    
+    @Override
+    public String toString() {
+        return getHTTPHeaderValue();
+    }
+    
+    /**
+     * Creates a media type without parameters.
+     *
+     * @param type the type
+     * @param subtype the subtype
+     * @return the media type
+     */
+    public static MediaType of(String type, String subtype) {
+        return new MediaType(type.toLowerCase(Locale.ROOT), subtype.toLowerCase(Locale.ROOT), NO_PARAMETERS);
+    }
+    
+    /**
+     * Creates a media type from a MIME type.
+     *
+     * @param type the MIME type
+     * @return the media type
+     */
+    public static MediaType of(MIMETypes type) {
+        return parse(type.getHTTPHeaderValue());
+    }
+    
+    /**
+     * Parses a media type, e.g. "text/html; charset=utf-8".
+     *
+     * @param value the header value
+     * @return the media type, or null if the value is null
+     * @throws HTTPException if the value is not a valid media type
+     */
+    public static MediaType parse(String value) throws HTTPException {
+        if (value == null) return null;
+        
+        MediaType mediaType = CACHE.get(value);
+        if (mediaType != null) return mediaType;
+        
+        HTTPHeaderReader reader = new HTTPHeaderReader(value);
+        reader.skipWhitespace();
+        mediaType = read(reader);
+        reader.skipWhitespace();
+        if (!reader.isEnd()) throw reader.error("Unexpected character");
+        
+        if (CACHE.size() < CACHE_SIZE) CACHE.putIfAbsent(value, mediaType);
+        return mediaType;
+    }
+    
+    /**
+     * Reads a media type and its parameters, stopping before a comma or the end of the value.
+     *
+     * @param reader the reader positioned at the type
+     * @return the media type
+     * @throws HTTPException if no valid media type starts at the cursor
+     */
+    public static MediaType read(HTTPHeaderReader reader) throws HTTPException {
+        String type = lower(reader.readToken());
+        reader.expect('/');
+        String subtype = lower(reader.readToken());
+        
+        String[] parameters = NO_PARAMETERS;
+        int count = 0;
+        while (reader.skipWhitespace().accept(';')) {
+            reader.skipWhitespace();
+            // tolerates empty parameters, e.g. "text/html;"
+            if (reader.isEnd() || reader.peek() == ';' || reader.peek() == ',') continue;
+            
+            String name = lower(reader.readToken());
+            reader.expect('=');
+            String value = reader.readTokenOrQuotedString();
+            
+            if (count == parameters.length) parameters = Arrays.copyOf(parameters, Math.max(4, count * 2));
+            parameters[count++] = name;
+            parameters[count++] = value;
+        }
+        if (count != parameters.length) parameters = Arrays.copyOf(parameters, count);
+        
+        return new MediaType(type, subtype, parameters);
+    }
+    
+    private static String lower(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 'A' && c <= 'Z') return s.toLowerCase(Locale.ROOT);
+        }
+        return s;
+    }
+    
+    private static void appendValue(StringBuilder sb, String value) {
+        boolean token = !value.isEmpty();
+        for (int i = 0; i < value.length() && token; i++) {
+            token = HTTPHeaderReader.isTokenChar(value.charAt(i));
+        }
+        if (token) {
+            sb.append(value);
+            return;
+        }
+        
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') sb.append('\\');
+            sb.append(c);
+        }
+        sb.append('"');
+    }
+}
@@ -0,0 +1,273 @@
+package fluff.http.head.value.values;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import fluff.http.head.value.HTTPHeaderValue;
+
+/**
+ * The values of RFC 8941 structured fields, as produced by
+ * {@link fluff.http.head.value.parsers.StructuredFieldParser}.
+ * <p>
+ * A field is an item, a list of members or a dictionary of members, where a member is an item or an inner list.
+ * Bare item values are represented by {@link Long} for integers, {@link Double} for decimals, {@link String}
+ * for strings, {@link Token} for tokens, {@code byte[]} for byte sequences and {@link Boolean} for booleans.
+ */
+public final class StructuredField {
+    
+    private StructuredField() {}
+    
+    /**
+     * A member of a list or dictionary, carrying its parameters.
+     */
+    public static abstract class Member implements HTTPHeaderValue {
+        
+        private final Map<String, Object> parameters;
+        
+        private Member(Map<String, Object> parameters) {
+            this.parameters = parameters;
+        }
+        
+        /**
+         * Returns the parameters of the member.
+         *
+         * @return an unmodifiable map of parameter names to bare item values, in their order
+         */
+        public Map<String, Object> getParameters() {
+            return parameters;
+        }
+        
+        /**
+         * Returns the value of the specified parameter.
+         *
+         * @param name the name of the parameter
+         * @return the bare item value, or null if the parameter is not present
+         */
+        public Object getParameter(String name) {
+            return parameters.get(name);
+        }
+        
+        void appendParameters(StringBuilder sb) {
+            for (Map.Entry<String, Object> e : parameters.entrySet()) {
+                sb.append(';').append(e.getKey());
+                if (!Boolean.TRUE.equals(e.getValue())) appendBareItem(sb.append('='), e.getValue());
+            }
+        }
+        
+        abstract void append(StringBuilder sb);
+        
+        @Override
+        public String getHTTPHeaderValue() {
+            StringBuilder sb = new StringBuilder();
+            append(sb);
+            return sb.toString();
+        }
+        
+        @Override
+        public String toString() {
+            return getHTTPHeaderValue();
+        }
+    }
+    
+    /**
+     * An item, a bare value with parameters.
+     */
+    public static final class Item extends Member {
+        
+        private final Object value;
+        
+        /**
+         * Constructs a new Item.
+         *
+         * @param value the bare item value
+         * @param parameters the parameters, not copied
+         */
+        public Item(Object value, Map<String, Object> parameters) {
+            super(parameters);
+            this.value = value;
+        }
+        
+        /**
+         * Returns the bare item value.
+         *
+         * @return the value
+         */
+        public Object getValue() {
+            return value;
+        }
+        
+        /**
+         * Returns the value as an integer.
+         *
+         * @return the value
+         * @throws ClassCastException if the value is not an integer
+         */
+        public long getLong() {
+            return (Long) value;
+        }
+        
+        /**
+         * Returns the value as a string, the content of a string or the name of a token.
+         *
+         * @return the value, or null if it is neither a string nor a token
+         */
+        public String getString() {
+            return value instanceof String || value instanceof Token ? value.toString() : null;
+        }
+        
+        /**
+         * Returns the value as a boolean.
+         *
+         * @return the value
+         * @throws ClassCastException if the value is not a boolean
+         */
+        public boolean getBoolean() {
+            return (Boolean) value;
+        }
+        
+        @Override
+        void append(StringBuilder sb) {
+            appendBareItem(sb, value);
+            appendParameters(sb);
+        }
+    }
+    
+    /**
+     * An inner list of items, with parameters.
+     */
+    public static final class InnerList extends Member {
+        
+        private final List<Item> items;
+        
+        /**
+         * Constructs a new InnerList.
+         *
+         * @param items the items, not copied
+         * @param parameters the parameters, not copied
+         */
+        public InnerList(List<Item> items, Map<String, Object> parameters) {
+            super(parameters);
+            this.items = Collections.unmodifiableList(items);
+        }
+        
+        /**
+         * Returns the items of the inner list.
+         *
+         * @return an unmodifiable list of the items
+         */
+        public List<Item> getItems() {
+            return items;
+        }
+        
+        @Override
+        void append(StringBuilder sb) {
+            sb.append('(');
+            for (int i = 0; i < items.size(); i++) {
+                if (i > 0) sb.append(' ');
+                items.get(i).append(sb);
+            }
+            sb.append(')');
+            appendParameters(sb);
+        }
+    }
+    
+    /**
+     * A token, kept apart from strings as the two serialize differently.
+     */
+    public static final class Token {
+        
+        private final String name;
+        
+        /**
+         * Constructs a new Token.
+         *
+         * @param name the token
+         */
+        public Token(String name) {
+            this.name = name;
+        }
+        
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Token other && name.equals(other.name);
+        }
+        
+        @Override
+        public int hashCode() {
+            return name.hashCode();
+        }
+        
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+    
+    /**
+     * Serializes a list of members.
+     *
+     * @param members the members
+     * @return the header value
+     */
+    public static String serializeList(List<? extends Member> members) {
+        StringBuilder sb = new StringBuilder();
+        for (Member member : members) {
+            if (sb.length() > 0) sb.append(", ");
+            member.append(sb);
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * Serializes a dictionary of members.
+     *
+     * @param members the members by their keys
+     * @return the header value
+     */
+    public static String serializeDictionary(Map<String, ? extends Member> members) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, ? extends Member> e : members.entrySet()) {
+            if (sb.length() > 0) sb.append(", ");
+            sb.append(e.getKey());
+            
+            Member member = e.getValue();
+            if (member instanceof Item item && Boolean.TRUE.equals(item.getValue())) {
+                item.appendParameters(sb);
+            } else {
+                member.append(sb.append('='));
+            }
+        }
+        return sb.toString();
+    }
+    
+    static void appendBareItem(StringBuilder sb, Object value) {
+        if (value instanceof Long || value instanceof Integer) {
+            sb.append(value);
+        } else if (value instanceof Double d) {
+            // at most three fraction digits, rounded half to even
+            BigDecimal decimal = BigDecimal.valueOf(d).setScale(3, RoundingMode.HALF_EVEN).stripTrailingZeros();
+            if (decimal.scale() <= 0) decimal = decimal.setScale(1);
+            sb.append(decimal.toPlainString());
+        } else if (value instanceof String s) {
+            sb.append('"');
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c == '"' || c == '\\') sb.append('\\');
+                sb.append(c);
+            }
+            sb.append('"');
+        } else if (value instanceof Token) {
+            sb.append(value);
+        } else if (value instanceof byte[] bytes) {
+            sb.append(':').append(Base64.getEncoder().encodeToString(bytes)).append(':');
+        } else if (value instanceof Boolean b) {
+            sb.append(b ? "?1" : "?0");
+        } else {
+            throw new IllegalArgumentException("Not a bare item: " + value);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package fluff.http.head.value.values;
+
+import fluff.http.head.value.HTTPHeaderValue;
+
+/**
+ * A value of a list header weighted by its quality value, e.g. an element of the Accept header.
+ * <p>
+ * The weight is kept in thousandths, the precision of quality values, so it is compared without floating point.
+ *
+ * @param <V> the type of the value
+ */
+public final class WeightedValue<V> implements HTTPHeaderValue {
+    
+    /**
+     * The weight of a value without a quality value.
+     */
+    public static final int MAX_WEIGHT = 1000;
+    
+    private final V value;
+    private final int weight;
+    
+    /**
+     * Constructs a new WeightedValue.
+     *
+     * @param value the value
+     * @param weight the weight, in thousandths
+     */
+    public WeightedValue(V value, int weight) {
+        if (weight < 0 || weight > MAX_WEIGHT) throw new IllegalArgumentException("Invalid weight: " + weight);
+        
+        this.value = value;
+        this.weight = weight;
+    }
+    
+    /**
+     * Returns the value.
+     *
+     * @return the value
+     */
+    public V getValue() {
+        return value;
+    }
+    
+    /**
+     * Returns the weight in thousandths, 1000 for q=1 and 0 for q=0.
+     *
+     * @return the weight
+     */
+    public int getWeight() {
+        return weight;
+    }
+    
+    /**
+     * Returns the quality value.
+     *
+     * @return the weight as a number between 0 and 1
+     */
+    public float getQuality() {
+        return weight / (float) MAX_WEIGHT;
+    }
+    
+    /**
+     * Returns whether the value is acceptable, which it is unless its quality value is 0.
+     *
+     * @return true if the weight is positive, false otherwise
+     */
+    public boolean isAcceptable() {
+        return weight > 0;
+    }
+    
+    @Override
+    public String getHTTPHeaderValue() {
+        String v = value instanceof HTTPHeaderValue h ? h.getHTTPHeaderValue() : String.valueOf(value);
+        if (weight == MAX_WEIGHT) return v;
+        if (weight == 0) return v + ";q=0";
+        
+        StringBuilder sb = new StringBuilder(v).append(";q=0.");
+        int w = weight;
+        sb.append(w / 100);
+        w %= 100;
+        if (w != 0) {
+            sb.append(w / 10);
+            w %= 10;
+            if (w != 0) sb.append(w);
+        }
+        return sb.toString();
+    }
+    
+    @Override
+    public String toString() {
+        return getHTTPHeaderValue();
+    }
+}
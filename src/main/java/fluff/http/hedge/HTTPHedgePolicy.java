@@ -0,0 +1,237 @@
+package fluff.http.hedge;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import fluff.functions.gen.TFunc;
+import fluff.http.HTTPException;
+import fluff.http.body.HTTPBodyParser;
+import fluff.http.request.HTTPRequest;
+import fluff.http.response.HTTPResponse;
+
+/**
+ * A policy sending a duplicate of a slow request and keeping whichever response arrives first.
+ * <p>
+ * The duplicate is sent once the request has been pending longer than the hedge delay, which is either fixed
+ * or learned as a percentile of recent latencies. The losing attempt is cancelled and its response closed.
+ * Only requests with an idempotent method and a repeatable body are hedged.
+ */
+public class HTTPHedgePolicy {
+    
+    private static final int SAMPLES = 1024;
+    private static final int MIN_SAMPLES = 32;
+    private static final int REFRESH_INTERVAL = 64;
+    
+    private final Duration delay;
+    private final double percentile;
+    private final Executor executor;
+    
+    private final long[] samples = new long[SAMPLES];
+    private final AtomicLong sampleCount = new AtomicLong();
+    private volatile long learnedDelay = -1;
+    
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    
+    private HTTPHedgePolicy(Duration delay, double percentile, Executor executor) {
+        this.delay = delay;
+        this.percentile = percentile;
+        this.executor = executor;
+    }
+    
+    /**
+     * Sends the request, hedging it if it is slower than the hedge delay.
+     *
+     * @param request the request to send
+     * @param exchange the function performing an attempt
+     * @return the HTTP response of the first successful attempt
+     * @throws HTTPException if all attempts failed
+     */
+    public HTTPResponse send(HTTPRequest request, TFunc<HTTPResponse, HTTPException> exchange) throws HTTPException {
+        if (!request.getMethod().isIdempotent() || !request.getBody().isRepeatable()) return exchange.invoke();
+        
+        requests.increment();
+        long start = System.nanoTime();
+        
+        Race race = new Race(exchange, executor != null ? executor : request.getHTTP().getBlockingExecutor());
+        FutureTask<Void> primary = race.start(false);
+        FutureTask<Void> hedge = null;
+        try {
+            Attempt winner;
+            try {
+                winner = race.winner.get(getDelay(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                hedges.increment();
+                hedge = race.start(true);
+                winner = race.winner.get();
+            }
+            
+            if (winner.hedge) hedgeWins.increment();
+            record(System.nanoTime() - start);
+            return winner.response;
+        } catch (InterruptedException e) {
+            throw new HTTPException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Error error) throw error;
+            throw e.getCause() instanceof HTTPException h ? h : new HTTPException(e.getCause());
+        } finally {
+            primary.cancel(true);
+            if (hedge != null) hedge.cancel(true);
+        }
+    }
+    
+    /**
+     * Returns the current hedge delay.
+     *
+     * @return the delay in milliseconds
+     */
+    public long getDelay() {
+        long learned = learnedDelay;
+        return learned >= 0 ? learned : delay.toMillis();
+    }
+    
+    /**
+     * Returns the number of requests considered for hedging.
+     *
+     * @return the number of requests
+     */
+    public long getRequests() {
+        return requests.sum();
+    }
+    
+    /**
+     * Returns the number of duplicates sent.
+     *
+     * @return the number of hedges fired
+     */
+    public long getHedges() {
+        return hedges.sum();
+    }
+    
+    /**
+     * Returns the number of duplicates that answered before the original request.
+     *
+     * @return the number of hedges won
+     */
+    public long getHedgeWins() {
+        return hedgeWins.sum();
+    }
+    
+    private void record(long nanos) {
+        if (percentile <= 0) return;
+        
+        long count = sampleCount.getAndIncrement();
+        samples[(int) (count % SAMPLES)] = TimeUnit.NANOSECONDS.toMillis(nanos);
+        
+        if (count + 1 >= MIN_SAMPLES && (count + 1) % REFRESH_INTERVAL == 0) {
+            long[] sorted = Arrays.copyOf(samples, (int) Math.min(count + 1, SAMPLES));
+            Arrays.sort(sorted);
+            // samples may be overwritten concurrently, which only blurs this estimate
+            learnedDelay = Math.max(sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)], 1);
+        }
+    }
+    
+    /**
+     * Creates a policy hedging requests pending longer than a fixed delay.
+     *
+     * @param delay the hedge delay
+     * @return a new HTTPHedgePolicy instance
+     */
+    public static HTTPHedgePolicy fixed(Duration delay) {
+        return new HTTPHedgePolicy(delay, 0, null);
+    }
+    
+    /**
+     * Creates a policy hedging requests pending longer than a percentile of recent latencies.
+     * <p>
+     * The initial delay is used until enough latencies have been recorded.
+     *
+     * @param percentile the latency percentile, e.g. 0.95
+     * @param initialDelay the hedge delay used before any latency is learned
+     * @return a new HTTPHedgePolicy instance
+     */
+    public static HTTPHedgePolicy percentile(double percentile, Duration initialDelay) {
+        return new HTTPHedgePolicy(initialDelay, percentile, null);
+    }
+    
+    /**
+     * Returns a copy of this policy running its attempts on the specified executor.
+     * <p>
+     * Attempts run on the {@linkplain fluff.http.HTTP#getBlockingExecutor() blocking executor} of the HTTP instance of the request by default.
+     *
+     * @param executor the executor running the attempts
+     * @return a new HTTPHedgePolicy instance
+     */
+    public HTTPHedgePolicy withExecutor(Executor executor) {
+        return new HTTPHedgePolicy(delay, percentile, executor);
+    }
+    
+    private class Race {
+        
+        private final TFunc<HTTPResponse, HTTPException> exchange;
+        private final Executor executor;
+        private final CompletableFuture<Attempt> winner = new CompletableFuture<>();
+        private final AtomicInteger started = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        
+        private Race(TFunc<HTTPResponse, HTTPException> exchange, Executor executor) {
+            this.exchange = exchange;
+            this.executor = executor;
+        }
+        
+        private FutureTask<Void> start(boolean hedge) {
+            started.incrementAndGet();
+            
+            FutureTask<Void> task = new FutureTask<>(() -> {
+                try {
+                    HTTPResponse response = exchange.invoke();
+                    if (!winner.complete(new Attempt(response, hedge))) discard(response);
+                } catch (Throwable e) {
+                    // an Error fails the attempt too, or the caller would wait for a winner forever
+                    fail(e);
+                }
+                return null;
+            });
+            
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                fail(new HTTPException(e));
+            }
+            return task;
+        }
+        
+        private void fail(Throwable error) {
+            if (failed.incrementAndGet() >= started.get()) winner.completeExceptionally(error);
+        }
+    }
+    
+    private static class Attempt {
+        
+        private final HTTPResponse response;
+        private final boolean hedge;
+        
+        private Attempt(HTTPResponse response, boolean hedge) {
+            this.response = response;
+            this.hedge = hedge;
+        }
+    }
+    
+    private static void discard(HTTPResponse response) {
+        try {
+            // the stream is closed once parsed
+            response.getBody().get(HTTPBodyParser.INPUT_STREAM);
+        } catch (HTTPException e) {}
+    }
+}
@@ -0,0 +1,34 @@
+package fluff.http.limit;
+
+import java.time.Duration;
+
+import fluff.http.HTTPException;
+
+/**
+ * Thrown when a request is rejected without being sent because it would wait too long for a rate limit permit.
+ */
+public class HTTPRateLimitException extends HTTPException {
+    
+    private static final long serialVersionUID = -3318207545902147718L;
+    
+    private final Duration delay;
+    
+    /**
+     * Constructs a new HTTPRateLimitException.
+     *
+     * @param delay the time the request would have had to wait for a permit
+     */
+    public HTTPRateLimitException(Duration delay) {
+        super("Rate limit exceeded, next permit in " + delay.toMillis() + "ms");
+        this.delay = delay;
+    }
+    
+    /**
+     * Returns the time the request would have had to wait for a permit.
+     *
+     * @return the delay
+     */
+    public Duration getDelay() {
+        return delay;
+    }
+}
@@ -0,0 +1,146 @@
+package fluff.http.limit;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A token bucket rate limiter.
+ * <p>
+ * The bucket holds up to a burst of permits and refills at a steady rate. Instead of counting tokens,
+ * the limiter keeps the time at which the bucket would be empty again, so a permit is taken with a single
+ * compare-and-set and a caller can reserve a permit in the future without blocking.
+ * Callers needing to wait longer than the maximum wait are rejected.
+ */
+public class HTTPRateLimiter {
+    
+    private final long interval;
+    private final AtomicLong emptyAt = new AtomicLong(System.nanoTime());
+    private final LongAdder delayed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    
+    private long capacity;
+    private long maxWait = Long.MAX_VALUE;
+    
+    /**
+     * Constructs a new HTTPRateLimiter allowing the specified number of permits per period.
+     * <p>
+     * The burst defaults to the number of permits.
+     *
+     * @param permits the number of permits per period
+     * @param period the period
+     */
+    public HTTPRateLimiter(int permits, Duration period) {
+        if (permits < 1) throw new IllegalArgumentException("Permits must be positive!");
+        
+        this.interval = Math.max(period.toNanos() / permits, 1);
+        this.capacity = interval * permits;
+    }
+    
+    /**
+     * Reserves a permit, returning how long the caller must wait before using it.
+     *
+     * @return the wait in nanoseconds, 0 if the permit can be used immediately
+     * @throws HTTPRateLimitException if the wait would exceed the maximum wait
+     */
+    public long reserve() throws HTTPRateLimitException {
+        long now = System.nanoTime();
+        long current, next, wait;
+        do {
+            current = emptyAt.get();
+            next = Math.max(current, now) + interval;
+            wait = Math.max(next - capacity - now, 0);
+            
+            if (wait > maxWait) {
+                rejected.increment();
+                throw new HTTPRateLimitException(Duration.ofNanos(wait));
+            }
+        } while (!emptyAt.compareAndSet(current, next));
+        
+        if (wait > 0) delayed.increment();
+        return wait;
+    }
+    
+    /**
+     * Gives back a permit reserved by {@link #reserve()} that will not be used.
+     * <p>
+     * Refunding a permit whose time has already passed has no effect.
+     */
+    public void refund() {
+        long now = System.nanoTime();
+        long current;
+        do {
+            current = emptyAt.get();
+            if (current <= now) return;
+        } while (!emptyAt.compareAndSet(current, Math.max(current - interval, now)));
+    }
+    
+    /**
+     * Takes a permit if one is available immediately.
+     *
+     * @return true if a permit was taken, false otherwise
+     */
+    public boolean tryAcquire() {
+        long now = System.nanoTime();
+        long current, next;
+        do {
+            current = emptyAt.get();
+            next = Math.max(current, now) + interval;
+            
+            if (next - capacity > now) return false;
+        } while (!emptyAt.compareAndSet(current, next));
+        return true;
+    }
+    
+    /**
+     * Sets the maximum number of permits that can be taken at once after an idle period.
+     *
+     * @param burst the burst size
+     * @return this HTTPRateLimiter instance
+     */
+    public HTTPRateLimiter setBurst(int burst) {
+        this.capacity = interval * Math.max(burst, 1);
+        return this;
+    }
+    
+    /**
+     * Sets the maximum time a caller waits for a permit before being rejected.
+     *
+     * @param maxWait the maximum wait, {@link Duration#ZERO} to reject instead of delaying, or null to wait indefinitely
+     * @return this HTTPRateLimiter instance
+     */
+    public HTTPRateLimiter setMaxWait(Duration maxWait) {
+        this.maxWait = maxWait != null ? maxWait.toNanos() : Long.MAX_VALUE;
+        return this;
+    }
+    
+    /**
+     * Returns the number of permits currently available.
+     * <p>
+     * The result is negative when callers are already waiting for reserved permits.
+     *
+     * @return the available permits
+     */
+    public long getAvailablePermits() {
+        long pending = Math.max(emptyAt.get() - System.nanoTime(), 0);
+        return Math.floorDiv(capacity - pending, interval);
+    }
+    
+    /**
+     * Returns the number of permits that were handed out with a delay.
+     *
+     * @return the number of delayed permits
+     */
+    public long getDelayed() {
+        return delayed.sum();
+    }
+    
+    /**
+     * Returns the number of callers rejected because they would have waited too long.
+     *
+     * @return the number of rejected callers
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+}
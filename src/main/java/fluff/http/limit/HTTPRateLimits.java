@@ -0,0 +1,160 @@
+package fluff.http.limit;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import fluff.http.HTTPException;
+import fluff.http.path.URLPath;
+import fluff.http.request.HTTPRequest;
+
+/**
+ * The rate limiters applied to the requests of an HTTP instance.
+ * <p>
+ * A request takes a permit from the global limiter, if any, and from the limiter of the longest
+ * {@link URLPath} prefix matching its URI, if any. A limiter registered for a host without path
+ * applies to every request to that host.
+ */
+public class HTTPRateLimits {
+    
+    private final Map<String, HTTPRateLimiter> limiters = new ConcurrentHashMap<>();
+    private volatile HTTPRateLimiter global;
+    
+    /**
+     * Reserves the permits needed by the request, returning how long it must wait before being sent.
+     *
+     * @param request the request
+     * @return the wait in nanoseconds, 0 if the request can be sent immediately
+     * @throws HTTPRateLimitException if the request would wait longer than the maximum wait of a limiter
+     */
+    public long reserve(HTTPRequest request) throws HTTPRateLimitException {
+        HTTPRateLimiter limiter = getLimiter(request.getURI());
+        HTTPRateLimiter global = this.global;
+        
+        long wait = limiter != null ? limiter.reserve() : 0;
+        if (global == null) return wait;
+        
+        try {
+            return Math.max(wait, global.reserve());
+        } catch (HTTPRateLimitException e) {
+            // the request is not sent, so it must not use up the permit of its prefix either
+            if (limiter != null) limiter.refund();
+            throw e;
+        }
+    }
+    
+    /**
+     * Takes the permits needed by the request, blocking until the request can be sent.
+     *
+     * @param request the request
+     * @throws HTTPRateLimitException if the request would wait longer than the maximum wait of a limiter
+     * @throws HTTPException if the thread is interrupted while waiting
+     */
+    public void acquire(HTTPRequest request) throws HTTPException {
+        long wait = reserve(request);
+        if (wait == 0) return;
+        
+        try {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HTTPException(e);
+        }
+    }
+    
+    /**
+     * Returns the limiter of the longest prefix matching the specified URI.
+     *
+     * @param uri the URI
+     * @return the matching limiter, or null if no prefix matches
+     */
+    public HTTPRateLimiter getLimiter(URI uri) {
+        if (limiters.isEmpty()) return null;
+        
+        String path = uri.getRawPath();
+        String key = uri.getScheme() + "://" + uri.getRawAuthority() + (path != null ? path : "");
+        int root = key.indexOf("://") + 3;
+        
+        // walks up the path like URLPath#parent does, without building the intermediate paths
+        while (true) {
+            if (key.endsWith("/")) key = key.substring(0, key.length() - 1);
+            
+            HTTPRateLimiter limiter = limiters.get(key);
+            if (limiter != null) return limiter;
+            
+            int slash = key.lastIndexOf('/');
+            if (slash < root) return null;
+            
+            key = key.substring(0, slash);
+        }
+    }
+    
+    /**
+     * Sets the limiter applied to every request.
+     *
+     * @param global the global limiter, or null for none
+     * @return this HTTPRateLimits instance
+     */
+    public HTTPRateLimits setGlobal(HTTPRateLimiter global) {
+        this.global = global;
+        return this;
+    }
+    
+    /**
+     * Returns the limiter applied to every request.
+     *
+     * @return the global limiter, or null if there is none
+     */
+    public HTTPRateLimiter getGlobal() {
+        return global;
+    }
+    
+    /**
+     * Sets the limiter applied to the requests under the specified prefix.
+     *
+     * @param prefix the prefix, either a host or a path on a host
+     * @param limiter the limiter, or null to remove the limiter of the prefix
+     * @return this HTTPRateLimits instance
+     */
+    public HTTPRateLimits set(URLPath prefix, HTTPRateLimiter limiter) {
+        String key = prefix.getPath();
+        if (key.endsWith("/")) key = key.substring(0, key.length() - 1);
+        
+        if (limiter != null) limiters.put(key, limiter);
+        else limiters.remove(key);
+        return this;
+    }
+    
+    /**
+     * Sets the limiter applied to the requests under the specified prefix.
+     *
+     * @param prefix the prefix, either a host or a path on a host
+     * @param limiter the limiter, or null to remove the limiter of the prefix
+     * @return this HTTPRateLimits instance
+     */
+    public HTTPRateLimits set(String prefix, HTTPRateLimiter limiter) {
+        return set(URLPath.of(prefix), limiter);
+    }
+    
+    /**
+     * Returns the limiter registered for the specified prefix.
+     *
+     * @param prefix the prefix
+     * @return the limiter, or null if none is registered for exactly this prefix
+     */
+    public HTTPRateLimiter get(URLPath prefix) {
+        String key = prefix.getPath();
+        return limiters.get(key.endsWith("/") ? key.substring(0, key.length() - 1) : key);
+    }
+    
+    /**
+     * Returns the limiters registered per prefix.
+     *
+     * @return an unmodifiable view of the limiters, keyed by prefix
+     */
+    public Map<String, HTTPRateLimiter> getLimiters() {
+        return Collections.unmodifiableMap(limiters);
+    }
+}
@@ -0,0 +1,241 @@
+package fluff.http.load;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+import fluff.http.HTTP;
+import fluff.http.HTTPException;
+import fluff.http.body.HTTPBodyParser;
+import fluff.http.request.HTTPRequest;
+import fluff.http.response.HTTPResponse;
+import fluff.http.response.HTTPResponseStatus;
+
+/**
+ * Generates load by sending requests and reports their latencies and statuses.
+ * <p>
+ * An open model sends requests at a constant arrival rate whatever the server does, as independent users would.
+ * A closed model keeps a fixed number of workers sending one request after the other, as a connection pool would.
+ * Every response body is read fully, so the measured times include the transfer of the body.
+ */
+public class HTTPLoadGenerator {
+    
+    private final Supplier<HTTPRequest> requests;
+    private Executor executor;
+    private Duration warmup = Duration.ZERO;
+    private Duration thinkTime = Duration.ZERO;
+    private Duration expectedInterval = Duration.ZERO;
+    
+    /**
+     * Constructs a new HTTPLoadGenerator.
+     *
+     * @param requests supplies a new request for each send, e.g. {@code () -> http.GET(url)}
+     */
+    public HTTPLoadGenerator(Supplier<HTTPRequest> requests) {
+        this.requests = requests;
+    }
+    
+    /**
+     * Sends requests at a constant rate for the specified duration, after the warmup.
+     * <p>
+     * Each request is sent on its own task, so a slow server increases the number of requests in flight
+     * instead of lowering the rate. Latencies are measured from the time each request was scheduled.
+     *
+     * @param rate the number of requests per second
+     * @param duration the duration of the measured part of the run
+     * @return the report of the run
+     * @throws HTTPException if the thread is interrupted while generating load
+     */
+    public HTTPLoadReport runOpen(double rate, Duration duration) throws HTTPException {
+        if (rate <= 0) throw new IllegalArgumentException("Rate must be positive!");
+        
+        long interval = Math.max((long) (1e9 / rate), 1);
+        HTTPLoadRecorder recorder = new HTTPLoadRecorder(0);
+        
+        return run(String.format("open model, %.1f req/s", rate), recorder, duration, (executor, tasks, measureFrom, end) -> {
+            long start = System.nanoTime();
+            for (long i = 0;; i++) {
+                long scheduled = start + i * interval;
+                if (scheduled >= end) return;
+                
+                await(scheduled);
+                
+                HTTPLoadRecorder target = scheduled >= measureFrom ? recorder : null;
+                tasks.execute(executor, () -> send(target, scheduled));
+            }
+        });
+    }
+    
+    /**
+     * Keeps the specified number of workers sending requests for the specified duration, after the warmup.
+     * <p>
+     * Each worker sends its next request once the previous one completed and the think time elapsed.
+     * If an expected interval is set, the latencies are corrected for the requests a stalled worker did not send.
+     *
+     * @param concurrency the number of workers
+     * @param duration the duration of the measured part of the run
+     * @return the report of the run
+     * @throws HTTPException if the thread is interrupted while generating load
+     */
+    public HTTPLoadReport runClosed(int concurrency, Duration duration) throws HTTPException {
+        if (concurrency < 1) throw new IllegalArgumentException("Concurrency must be positive!");
+        
+        long think = thinkTime.toNanos();
+        HTTPLoadRecorder recorder = new HTTPLoadRecorder(expectedInterval.toNanos());
+        
+        return run("closed model, " + concurrency + " workers", recorder, duration, (executor, tasks, measureFrom, end) -> {
+            for (int i = 0; i < concurrency; i++) {
+                tasks.execute(executor, () -> {
+                    for (long next = System.nanoTime(); next < end && !Thread.currentThread().isInterrupted(); next = System.nanoTime() + think) {
+                        await(next);
+                        send(next >= measureFrom ? recorder : null, next);
+                    }
+                });
+            }
+        });
+    }
+    
+    private HTTPLoadReport run(String model, HTTPLoadRecorder recorder, Duration duration, Workload workload) throws HTTPException {
+        ExecutorService owned = executor == null ? newExecutor() : null;
+        Tasks tasks = new Tasks();
+        
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        try {
+            workload.run(executor != null ? executor : owned, tasks, measureFrom, end);
+            tasks.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HTTPException(e);
+        } finally {
+            if (owned != null) owned.shutdownNow();
+        }
+        return recorder.report(model, System.nanoTime() - measureFrom);
+    }
+    
+    private void send(HTTPLoadRecorder recorder, long scheduled) {
+        long sent = System.nanoTime();
+        try {
+            HTTPResponse response = requests.get().send();
+            try (InputStream in = response.getBody().getNoClose(HTTPBodyParser.INPUT_STREAM)) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+            
+            long now = System.nanoTime();
+            HTTPResponseStatus status = response.getStatus();
+            if (recorder != null) recorder.recordResponse(status != null ? status.getCode() : 0, now - scheduled, now - sent);
+        } catch (IOException | RuntimeException e) {
+            long now = System.nanoTime();
+            if (recorder != null) recorder.recordError(e, now - scheduled, now - sent);
+        }
+    }
+    
+    private static void await(long time) throws HTTPException {
+        for (long wait = time - System.nanoTime(); wait > 0; wait = time - System.nanoTime()) {
+            LockSupport.parkNanos(wait);
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                throw new HTTPException(new InterruptedException());
+            }
+        }
+    }
+    
+    private static ExecutorService newExecutor() {
+        try {
+            return HTTP.newVirtualThreadExecutor();
+        } catch (HTTPException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+    
+    /**
+     * Sets the executor running the requests, instead of a virtual thread per request when supported.
+     *
+     * @param executor the executor, or null for the default one
+     * @return this HTTPLoadGenerator instance
+     */
+    public HTTPLoadGenerator setExecutor(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+    
+    /**
+     * Sets the time during which load is generated but not recorded, to let connections and the JIT warm up.
+     *
+     * @param warmup the warmup duration
+     * @return this HTTPLoadGenerator instance
+     */
+    public HTTPLoadGenerator setWarmup(Duration warmup) {
+        this.warmup = warmup;
+        return this;
+    }
+    
+    /**
+     * Sets the time a closed-model worker waits between a response and its next request.
+     *
+     * @param thinkTime the think time
+     * @return this HTTPLoadGenerator instance
+     */
+    public HTTPLoadGenerator setThinkTime(Duration thinkTime) {
+        this.thinkTime = thinkTime;
+        return this;
+    }
+    
+    /**
+     * Sets the interval at which a closed-model worker is expected to send requests,
+     * used to correct its latencies for coordinated omission.
+     *
+     * @param expectedInterval the expected interval, or {@link Duration#ZERO} to not correct latencies
+     * @return this HTTPLoadGenerator instance
+     */
+    public HTTPLoadGenerator setExpectedInterval(Duration expectedInterval) {
+        this.expectedInterval = expectedInterval;
+        return this;
+    }
+    
+    @FunctionalInterface
+    private interface Workload {
+        
+        void run(Executor executor, Tasks tasks, long measureFrom, long end) throws InterruptedException;
+    }
+    
+    // counts the tasks still running, without the 65535 party limit of a Phaser an open model can exceed against a stalled server
+    private static class Tasks {
+        
+        private long running;
+        
+        private void execute(Executor executor, Runnable task) {
+            synchronized (this) {
+                running++;
+            }
+            
+            try {
+                executor.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        done();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                done();
+                throw e;
+            }
+        }
+        
+        private synchronized void done() {
+            if (--running == 0) notifyAll();
+        }
+        
+        private synchronized void await() throws InterruptedException {
+            while (running > 0) wait();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package fluff.http.load;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import fluff.http.HTTPException;
+import fluff.http.metrics.HTTPHistogram;
+
+/**
+ * Collects the outcomes of the requests of a load run.
+ */
+class HTTPLoadRecorder {
+    
+    private final long expectedInterval;
+    private final HTTPHistogram latency = new HTTPHistogram();
+    private final HTTPHistogram service = new HTTPHistogram();
+    private final ConcurrentMap<Integer, HTTPHistogram> statuses = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private final LongAdder requests = new LongAdder();
+    
+    HTTPLoadRecorder(long expectedInterval) {
+        this.expectedInterval = expectedInterval;
+    }
+    
+    void recordResponse(int statusCode, long latency, long service) {
+        record(latency, service);
+        statuses.computeIfAbsent(statusCode, k -> new HTTPHistogram()).record(latency);
+    }
+    
+    void recordError(Throwable error, long latency, long service) {
+        record(latency, service);
+        // an HTTPException only wraps the actual failure
+        Throwable cause = error.getClass() == HTTPException.class && error.getCause() != null ? error.getCause() : error;
+        errors.computeIfAbsent(cause.getClass().getSimpleName(), k -> new LongAdder()).increment();
+    }
+    
+    private void record(long latency, long service) {
+        requests.increment();
+        this.service.record(service);
+        this.latency.record(latency);
+        
+        // back-fills the requests a stalled closed-model worker did not send, like HdrHistogram does
+        if (expectedInterval <= 0) return;
+        for (long missed = latency - expectedInterval; missed >= expectedInterval; missed -= expectedInterval) {
+            this.latency.record(missed);
+        }
+    }
+    
+    HTTPLoadReport report(String model, long elapsed) {
+        Map<Integer, HTTPHistogram.Snapshot> statuses = new TreeMap<>();
+        this.statuses.forEach((code, histogram) -> statuses.put(code, histogram.snapshot()));
+        
+        Map<String, Long> errors = new TreeMap<>();
+        this.errors.forEach((type, count) -> errors.put(type, count.sum()));
+        
+        return new HTTPLoadReport(model, elapsed, requests.sum(), latency.snapshot(), service.snapshot(), statuses, errors);
+    }
+}
@@ -0,0 +1,166 @@
+package fluff.http.load;
+
+import java.util.Collections;
+import java.util.Map;
+
+import fluff.http.metrics.HTTPHistogram;
+import fluff.http.response.HTTPResponseStatus;
+
+/**
+ * The results of a load run.
+ * <p>
+ * Latencies are measured from the time each request was meant to be sent, so a slow server delaying the
+ * following requests shows in the results instead of being hidden by them (coordinated omission).
+ * Service times are measured from the time each request was actually sent.
+ */
+public class HTTPLoadReport {
+    
+    private static final double[] PERCENTILES = { 50, 90, 99, 99.9, 100 };
+    
+    private final String model;
+    private final long elapsed;
+    private final long requests;
+    private final HTTPHistogram.Snapshot latency;
+    private final HTTPHistogram.Snapshot service;
+    private final Map<Integer, HTTPHistogram.Snapshot> statuses;
+    private final Map<String, Long> errors;
+    
+    HTTPLoadReport(String model, long elapsed, long requests, HTTPHistogram.Snapshot latency, HTTPHistogram.Snapshot service,
+            Map<Integer, HTTPHistogram.Snapshot> statuses, Map<String, Long> errors) {
+        this.model = model;
+        this.elapsed = elapsed;
+        this.requests = requests;
+        this.latency = latency;
+        this.service = service;
+        this.statuses = Collections.unmodifiableMap(statuses);
+        this.errors = Collections.unmodifiableMap(errors);
+    }
+    
+    /**
+     * Returns the number of recorded requests, including failed ones.
+     *
+     * @return the number of requests
+     */
+    public long getRequests() {
+        return requests;
+    }
+    
+    /**
+     * Returns the number of requests failing without a response.
+     *
+     * @return the number of errors
+     */
+    public long getErrors() {
+        long sum = 0;
+        for (long count : errors.values()) {
+            sum += count;
+        }
+        return sum;
+    }
+    
+    /**
+     * Returns the number of requests failing without a response, by exception type.
+     *
+     * @return an unmodifiable map of the error counts
+     */
+    public Map<String, Long> getErrorsByType() {
+        return errors;
+    }
+    
+    /**
+     * Returns the duration of the measured part of the run, in nanoseconds.
+     *
+     * @return the elapsed time
+     */
+    public long getElapsed() {
+        return elapsed;
+    }
+    
+    /**
+     * Returns the number of requests completed per second.
+     *
+     * @return the throughput
+     */
+    public double getThroughput() {
+        return elapsed > 0 ? requests * 1e9 / elapsed : 0;
+    }
+    
+    /**
+     * Returns the latencies, corrected for coordinated omission, in nanoseconds.
+     *
+     * @return the latency histogram
+     */
+    public HTTPHistogram.Snapshot getLatency() {
+        return latency;
+    }
+    
+    /**
+     * Returns the service times, from sending each request to reading its response, in nanoseconds.
+     *
+     * @return the service time histogram
+     */
+    public HTTPHistogram.Snapshot getServiceTime() {
+        return service;
+    }
+    
+    /**
+     * Returns the latencies of the responses, by status code.
+     *
+     * @return an unmodifiable map of the latency histograms
+     */
+    public Map<Integer, HTTPHistogram.Snapshot> getStatuses() {
+        return statuses;
+    }
+    
+    /**
+     * Returns the latencies of the responses with the specified status.
+     *
+     * @param status the status
+     * @return the latency histogram, or null if no response had this status
+     */
+    public HTTPHistogram.Snapshot getStatus(HTTPResponseStatus status) {
+        return statuses.get(status.getCode());
+    }
+    
+    /**
+     * Returns a human readable summary of the run.
+     *
+     * @return the summary
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%s: %d requests in %.2fs, %.1f req/s, %d errors%n", model, requests, elapsed / 1e9, getThroughput(), getErrors()));
+        
+        appendRow(sb, "", null);
+        appendRow(sb, "latency", latency);
+        appendRow(sb, "service", service);
+        
+        for (Map.Entry<Integer, HTTPHistogram.Snapshot> e : statuses.entrySet()) {
+            HTTPResponseStatus status = HTTPResponseStatus.byCode(e.getKey());
+            appendRow(sb, status != null ? status.getCode() + " " + status.getMessage() : "other", e.getValue());
+        }
+        for (Map.Entry<String, Long> e : errors.entrySet()) {
+            sb.append(String.format("%-28s %10d%n", e.getKey(), e.getValue()));
+        }
+        return sb.toString();
+    }
+    
+    private static void appendRow(StringBuilder sb, String name, HTTPHistogram.Snapshot histogram) {
+        sb.append(String.format("%-28s", name.length() > 28 ? name.substring(0, 28) : name));
+        if (histogram == null) {
+            sb.append(String.format(" %10s", "count"));
+            for (double p : PERCENTILES) {
+                sb.append(String.format(" %9s", p == 100 ? "max" : "p" + (p == (long) p ? String.valueOf((long) p) : String.valueOf(p))));
+            }
+            sb.append(String.format(" %9s%n", "mean"));
+            return;
+        }
+        
+        sb.append(String.format(" %10d", histogram.getCount()));
+        for (double p : PERCENTILES) {
+            sb.append(String.format(" %7.2fms", histogram.getValueAtPercentile(p) / 1e6));
+        }
+        sb.append(String.format(" %7.2fms%n", histogram.getMean() / 1e6));
+    }
+}
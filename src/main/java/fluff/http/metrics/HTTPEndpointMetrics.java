@@ -0,0 +1,64 @@
+package fluff.http.metrics;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import fluff.http.request.HTTPRequestMethod;
+import fluff.http.response.HTTPResponseStatus;
+
+/**
+ * The metrics of the exchanges with a host using a method.
+ */
+class HTTPEndpointMetrics {
+    
+    private static final HTTPMetrics.Phase[] PHASES = HTTPMetrics.Phase.values();
+    private static final HTTPResponseStatus.Series[] SERIES = HTTPResponseStatus.Series.values();
+    
+    private final String authority;
+    private final HTTPRequestMethod method;
+    private final HTTPHistogram[] timings = new HTTPHistogram[PHASES.length];
+    private final AtomicLongArray statuses = new AtomicLongArray(SERIES.length);
+    
+    final LongAdder errors = new LongAdder();
+    final LongAdder bytesIn = new LongAdder();
+    final LongAdder bytesOut = new LongAdder();
+    final LongAdder inFlight = new LongAdder();
+    final LongAdder openBodies = new LongAdder();
+    
+    HTTPEndpointMetrics(String authority, HTTPRequestMethod method) {
+        this.authority = authority;
+        this.method = method;
+        
+        for (int i = 0; i < timings.length; i++) {
+            timings[i] = new HTTPHistogram();
+        }
+    }
+    
+    void record(HTTPMetrics.Phase phase, long nanos) {
+        timings[phase.ordinal()].record(nanos);
+    }
+    
+    void recordStatus(int statusCode) {
+        int series = statusCode / 100 - 1;
+        if (series >= 0 && series < SERIES.length) statuses.incrementAndGet(series);
+    }
+    
+    HTTPMetricsSnapshot snapshot() {
+        Map<HTTPMetrics.Phase, HTTPHistogram.Snapshot> timings = new EnumMap<>(HTTPMetrics.Phase.class);
+        for (HTTPMetrics.Phase phase : PHASES) {
+            timings.put(phase, this.timings[phase.ordinal()].snapshot());
+        }
+        
+        Map<HTTPResponseStatus.Series, Long> statuses = new EnumMap<>(HTTPResponseStatus.Series.class);
+        for (HTTPResponseStatus.Series series : SERIES) {
+            statuses.put(series, this.statuses.get(series.ordinal()));
+        }
+        
+        return new HTTPMetricsSnapshot(authority, method,
+                Collections.unmodifiableMap(timings), Collections.unmodifiableMap(statuses),
+                errors.sum(), bytesIn.sum(), bytesOut.sum(), inFlight.sum(), openBodies.sum());
+    }
+}
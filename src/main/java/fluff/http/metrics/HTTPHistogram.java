@@ -0,0 +1,157 @@
+package fluff.http.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of non-negative values, such as durations in nanoseconds.
+ * <p>
+ * Like an HDR histogram, buckets are linear within each power of two and their width doubles with each power,
+ * so any value is recorded with a relative error under about 3% into a fixed array of counters,
+ * whatever its magnitude. Recording is a single atomic increment and never allocates.
+ */
+public class HTTPHistogram {
+    
+    private static final int SUB_BITS = 6;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int HALF_COUNT = SUB_COUNT >> 1;
+    private static final int BUCKETS = (63 - SUB_BITS) * HALF_COUNT + SUB_COUNT;
+    
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong();
+    
+    /**
+     * Records a value.
+     *
+     * @param value the value, negative values are recorded as 0
+     */
+    public void record(long value) {
+        if (value < 0) value = 0;
+        
+        counts.incrementAndGet(index(value));
+        sum.add(value);
+        
+        // the common case does not write the extremes
+        if (value < min.get()) min.accumulateAndGet(value, Math::min);
+        if (value > max.get()) max.accumulateAndGet(value, Math::max);
+    }
+    
+    /**
+     * Returns a snapshot of the values recorded so far.
+     * <p>
+     * Values recorded while the snapshot is taken may be partially included.
+     *
+     * @return the snapshot
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        return new Snapshot(copy, count, sum.sum(), count > 0 ? min.get() : 0, max.get());
+    }
+    
+    private static int index(long value) {
+        if (value < SUB_COUNT) return (int) value;
+        
+        int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return shift * HALF_COUNT + (int) (value >>> shift);
+    }
+    
+    private static long lowerBound(int index) {
+        if (index < SUB_COUNT) return index;
+        
+        int shift = index / HALF_COUNT - 1;
+        return (long) (index - shift * HALF_COUNT) << shift;
+    }
+    
+    /**
+     * An immutable view of the values of a histogram at a point in time.
+     */
+    public static class Snapshot {
+        
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long min;
+        private final long max;
+        
+        private Snapshot(long[] counts, long count, long sum, long min, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.min = min;
+            this.max = max;
+        }
+        
+        /**
+         * Returns the value below which the specified percentage of the recorded values fall.
+         * <p>
+         * The result is the highest value of the bucket holding the percentile, capped by the maximum.
+         *
+         * @param percentile the percentile, between 0 and 100
+         * @return the value at the percentile, or 0 if no value was recorded
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (count == 0) return 0;
+            
+            long rank = Math.max((long) Math.ceil(percentile / 100 * count), 1);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) return Math.min(lowerBound(i + 1) - 1, max);
+            }
+            return max;
+        }
+        
+        /**
+         * Returns the number of recorded values.
+         *
+         * @return the count
+         */
+        public long getCount() {
+            return count;
+        }
+        
+        /**
+         * Returns the sum of the recorded values.
+         *
+         * @return the sum
+         */
+        public long getSum() {
+            return sum;
+        }
+        
+        /**
+         * Returns the mean of the recorded values.
+         *
+         * @return the mean, or 0 if no value was recorded
+         */
+        public double getMean() {
+            return count > 0 ? (double) sum / count : 0;
+        }
+        
+        /**
+         * Returns the smallest recorded value.
+         *
+         * @return the minimum, or 0 if no value was recorded
+         */
+        public long getMin() {
+            return min;
+        }
+        
+        /**
+         * Returns the largest recorded value.
+         *
+         * @return the maximum, or 0 if no value was recorded
+         */
+        public long getMax() {
+            return max;
+        }
+    }
+}
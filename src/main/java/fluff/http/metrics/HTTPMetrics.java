@@ -0,0 +1,242 @@
+package fluff.http.metrics;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.Cleaner;
+import java.net.http.HttpRequest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import fluff.http.request.HTTPRequest;
+import fluff.http.request.HTTPRequestMethod;
+
+/**
+ * Records the timings, statuses, bytes and in-flight counts of the exchanges of an HTTP instance, per host and method.
+ * <p>
+ * An exchange is in flight until its response head arrives, its response body is then open until it is read or
+ * closed. Bodies never read nor closed are counted as closed once they are garbage collected, without timings.
+ * <p>
+ * Connection establishment is not exposed by the HttpClient, so it is included in the time to first byte.
+ */
+public class HTTPMetrics {
+    
+    /**
+     * Enumeration of the timed phases of an exchange.
+     */
+    public static enum Phase {
+        /** From sending the request to transmitting the exchange, including backoffs, rate limits and interceptors. */
+        QUEUE,
+        /** From transmitting the exchange to receiving the response head, including connecting. */
+        FIRST_BYTE,
+        /** From receiving the response head to reading or closing the response body. */
+        BODY,
+        /** From transmitting the exchange to reading or closing the response body. */
+        TOTAL;
+    }
+    
+    private static final HTTPRequestMethod[] METHODS = HTTPRequestMethod.values();
+    private static final Cleaner CLEANER = Cleaner.create();
+    
+    private final ConcurrentMap<String, AtomicReferenceArray<HTTPEndpointMetrics>> hosts = new ConcurrentHashMap<>();
+    
+    /**
+     * Starts recording an exchange about to be transmitted.
+     *
+     * @param request the request being exchanged
+     * @param httpRequest the request about to be transmitted
+     * @param queuedAt the {@link System#nanoTime()} at which the request was sent
+     * @return the exchange recorder
+     */
+    public Exchange start(HTTPRequest request, HttpRequest httpRequest, long queuedAt) {
+        HTTPEndpointMetrics endpoint = endpoint(String.valueOf(request.getURI().getAuthority()), request.getMethod());
+        long now = System.nanoTime();
+        
+        if (queuedAt != 0) endpoint.record(Phase.QUEUE, now - queuedAt);
+        
+        long length = httpRequest.bodyPublisher().map(HttpRequest.BodyPublisher::contentLength).orElse(0L);
+        if (length > 0) endpoint.bytesOut.add(length);
+        
+        endpoint.inFlight.increment();
+        return new Exchange(endpoint, now);
+    }
+    
+    /**
+     * Returns a snapshot of the metrics of the specified host and method.
+     *
+     * @param authority the authority of the host
+     * @param method the request method
+     * @return the snapshot, or null if no exchange was recorded for them
+     */
+    public HTTPMetricsSnapshot snapshot(String authority, HTTPRequestMethod method) {
+        AtomicReferenceArray<HTTPEndpointMetrics> methods = hosts.get(authority);
+        HTTPEndpointMetrics endpoint = methods != null ? methods.get(method.ordinal()) : null;
+        return endpoint != null ? endpoint.snapshot() : null;
+    }
+    
+    /**
+     * Returns snapshots of the metrics of every host and method with recorded exchanges.
+     *
+     * @return the snapshots
+     */
+    public List<HTTPMetricsSnapshot> snapshot() {
+        List<HTTPMetricsSnapshot> snapshots = new ArrayList<>();
+        for (AtomicReferenceArray<HTTPEndpointMetrics> methods : hosts.values()) {
+            for (int i = 0; i < methods.length(); i++) {
+                HTTPEndpointMetrics endpoint = methods.get(i);
+                if (endpoint != null) snapshots.add(endpoint.snapshot());
+            }
+        }
+        return snapshots;
+    }
+    
+    /**
+     * Exports snapshots of the metrics of every host and method to the specified exporter.
+     *
+     * @param exporter the exporter
+     */
+    public void export(HTTPMetricsExporter exporter) {
+        exporter.export(snapshot());
+    }
+    
+    private HTTPEndpointMetrics endpoint(String authority, HTTPRequestMethod method) {
+        AtomicReferenceArray<HTTPEndpointMetrics> methods = hosts.get(authority);
+        if (methods == null) methods = hosts.computeIfAbsent(authority, k -> new AtomicReferenceArray<>(METHODS.length));
+        
+        HTTPEndpointMetrics endpoint = methods.get(method.ordinal());
+        if (endpoint != null) return endpoint;
+        
+        methods.compareAndSet(method.ordinal(), null, new HTTPEndpointMetrics(authority, method));
+        return methods.get(method.ordinal());
+    }
+    
+    /**
+     * Records a single exchange, from its transmission until its response body is read or closed.
+     */
+    public static class Exchange {
+        
+        private static final AtomicIntegerFieldUpdater<Exchange> STATE = AtomicIntegerFieldUpdater.newUpdater(Exchange.class, "state");
+        private static final int IN_FLIGHT = 0, BODY_OPEN = 1, DONE = 2;
+        
+        private final HTTPEndpointMetrics endpoint;
+        private final long startedAt;
+        private long headersAt;
+        private volatile int state;
+        private volatile Cleaner.Cleanable cleanable;
+        
+        private Exchange(HTTPEndpointMetrics endpoint, long startedAt) {
+            this.endpoint = endpoint;
+            this.startedAt = startedAt;
+        }
+        
+        /**
+         * Records the reception of the response head.
+         *
+         * @param statusCode the response status code
+         */
+        public void onHeaders(int statusCode) {
+            headersAt = System.nanoTime();
+            if (!STATE.compareAndSet(this, IN_FLIGHT, BODY_OPEN)) return;
+            
+            endpoint.inFlight.decrement();
+            endpoint.openBodies.increment();
+            endpoint.record(Phase.FIRST_BYTE, headersAt - startedAt);
+            endpoint.recordStatus(statusCode);
+        }
+        
+        /**
+         * Wraps the response body stream to count its bytes and end the exchange once it is read, closed
+         * or garbage collected.
+         *
+         * @param in the response body stream
+         * @return the counting stream
+         */
+        public InputStream wrap(InputStream in) {
+            InputStream stream = new FilterInputStream(in) {
+                
+                @Override
+                public int read() throws IOException {
+                    int b = super.read();
+                    if (b < 0) end();
+                    else endpoint.bytesIn.increment();
+                    return b;
+                }
+                
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    int n = super.read(b, off, len);
+                    if (n < 0) end();
+                    else endpoint.bytesIn.add(n);
+                    return n;
+                }
+                
+                @Override
+                public long skip(long n) throws IOException {
+                    long skipped = super.skip(n);
+                    endpoint.bytesIn.add(skipped);
+                    return skipped;
+                }
+                
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        end();
+                    }
+                }
+            };
+            // the action only references the exchange, which does not reference the stream
+            cleanable = CLEANER.register(stream, this::abandon);
+            return stream;
+        }
+        
+        /**
+         * Records the failure of the exchange before its response was complete.
+         */
+        public void onError() {
+            int previous = STATE.getAndSet(this, DONE);
+            if (previous == DONE) return;
+            
+            endpoint.errors.increment();
+            if (previous == IN_FLIGHT) endpoint.inFlight.decrement();
+            else endpoint.openBodies.decrement();
+        }
+        
+        /**
+         * Records the reception of a response body that was not read through {@link #wrap(InputStream)}.
+         *
+         * @param bytes the number of body bytes received
+         */
+        public void onBody(long bytes) {
+            endpoint.bytesIn.add(bytes);
+            end();
+        }
+        
+        private void end() {
+            int previous = STATE.getAndSet(this, DONE);
+            if (previous == DONE) return;
+            
+            if (previous == IN_FLIGHT) {
+                endpoint.inFlight.decrement();
+            } else {
+                long now = System.nanoTime();
+                endpoint.record(Phase.BODY, now - headersAt);
+                endpoint.record(Phase.TOTAL, now - startedAt);
+                endpoint.openBodies.decrement();
+            }
+            
+            Cleaner.Cleanable cleanable = this.cleanable;
+            if (cleanable != null) cleanable.clean();
+        }
+        
+        // run by the cleaner once a wrapped body is unreachable, or when the exchange ends
+        private void abandon() {
+            if (STATE.compareAndSet(this, BODY_OPEN, DONE)) endpoint.openBodies.decrement();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package fluff.http.metrics;
+
+import java.util.List;
+
+/**
+ * Receives metrics snapshots, to bridge them to an external metrics system.
+ */
+@FunctionalInterface
+public interface HTTPMetricsExporter {
+    
+    /**
+     * Exports the snapshots of every host and method.
+     *
+     * @param snapshots the snapshots
+     */
+    void export(List<HTTPMetricsSnapshot> snapshots);
+}
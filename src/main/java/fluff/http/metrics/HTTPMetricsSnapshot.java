@@ -0,0 +1,141 @@
+package fluff.http.metrics;
+
+import java.util.Map;
+
+import fluff.http.request.HTTPRequestMethod;
+import fluff.http.response.HTTPResponseStatus;
+
+/**
+ * An immutable view of the metrics of a host and method at a point in time.
+ */
+public class HTTPMetricsSnapshot {
+    
+    private final String authority;
+    private final HTTPRequestMethod method;
+    private final Map<HTTPMetrics.Phase, HTTPHistogram.Snapshot> timings;
+    private final Map<HTTPResponseStatus.Series, Long> statuses;
+    private final long errors;
+    private final long bytesIn;
+    private final long bytesOut;
+    private final long inFlight;
+    private final long openBodies;
+    
+    /**
+     * Constructs a new HTTPMetricsSnapshot.
+     *
+     * @param authority the authority of the host
+     * @param method the request method
+     * @param timings the timing histograms, by phase
+     * @param statuses the response counts, by status series
+     * @param errors the number of exchanges failing before their response was complete
+     * @param bytesIn the number of response body bytes received
+     * @param bytesOut the number of request body bytes sent
+     * @param inFlight the number of exchanges waiting for their response head
+     * @param openBodies the number of response bodies neither read nor closed
+     */
+    public HTTPMetricsSnapshot(String authority, HTTPRequestMethod method, Map<HTTPMetrics.Phase, HTTPHistogram.Snapshot> timings,
+            Map<HTTPResponseStatus.Series, Long> statuses, long errors, long bytesIn, long bytesOut, long inFlight,
+            long openBodies) {
+        this.authority = authority;
+        this.method = method;
+        this.timings = timings;
+        this.statuses = statuses;
+        this.errors = errors;
+        this.bytesIn = bytesIn;
+        this.bytesOut = bytesOut;
+        this.inFlight = inFlight;
+        this.openBodies = openBodies;
+    }
+    
+    /**
+     * Returns the authority of the host.
+     *
+     * @return the authority
+     */
+    public String getAuthority() {
+        return authority;
+    }
+    
+    /**
+     * Returns the request method.
+     *
+     * @return the method
+     */
+    public HTTPRequestMethod getMethod() {
+        return method;
+    }
+    
+    /**
+     * Returns the timing histogram of the specified phase, in nanoseconds.
+     *
+     * @param phase the phase
+     * @return the histogram snapshot
+     */
+    public HTTPHistogram.Snapshot getTiming(HTTPMetrics.Phase phase) {
+        return timings.get(phase);
+    }
+    
+    /**
+     * Returns the response counts by status series.
+     *
+     * @return an unmodifiable map of the counts
+     */
+    public Map<HTTPResponseStatus.Series, Long> getStatuses() {
+        return statuses;
+    }
+    
+    /**
+     * Returns the number of responses of the specified status series.
+     *
+     * @param series the series
+     * @return the number of responses
+     */
+    public long getStatusCount(HTTPResponseStatus.Series series) {
+        return statuses.getOrDefault(series, 0L);
+    }
+    
+    /**
+     * Returns the number of exchanges failing before their response was complete.
+     *
+     * @return the number of errors
+     */
+    public long getErrors() {
+        return errors;
+    }
+    
+    /**
+     * Returns the number of response body bytes received, as sent on the wire.
+     *
+     * @return the number of bytes
+     */
+    public long getBytesIn() {
+        return bytesIn;
+    }
+    
+    /**
+     * Returns the number of request body bytes sent, for bodies of known length.
+     *
+     * @return the number of bytes
+     */
+    public long getBytesOut() {
+        return bytesOut;
+    }
+    
+    /**
+     * Returns the number of exchanges in flight, from their transmission until their response head is received.
+     *
+     * @return the number of exchanges
+     */
+    public long getInFlight() {
+        return inFlight;
+    }
+    
+    /**
+     * Returns the number of response bodies received but not yet read to the end nor closed.
+     *
+     * @return the number of bodies
+     */
+    public long getOpenBodies() {
+        return openBodies;
+    }
+}
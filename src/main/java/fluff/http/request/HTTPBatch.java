@@ -0,0 +1,213 @@
+package fluff.http.request;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import fluff.http.HTTPException;
+import fluff.http.body.HTTPBodyParser;
+import fluff.http.response.HTTPResponse;
+
+/**
+ * Sends a collection of HTTP requests in parallel, limiting the number of in-flight requests per host.
+ * <p>
+ * Each request is sent with {@link HTTPRequest#send()} on the {@linkplain fluff.http.HTTP#getBlockingExecutor() blocking executor},
+ * so it goes through the cache, retries, hedging, rate limits and circuit breaker like any other request.
+ * A failing request does not abort the batch, its {@link HTTPException} is reported in its {@link HTTPBatchResult}.
+ * A slot is released as soon as the response head is received, so response bodies should be consumed promptly.
+ */
+public class HTTPBatch {
+    
+    private final List<HTTPRequest> requests;
+    private final int concurrencyLimit;
+    
+    /**
+     * Constructs a new HTTPBatch.
+     *
+     * @param requests the requests to send
+     * @param concurrencyLimit the maximum number of in-flight requests per host
+     */
+    public HTTPBatch(Collection<HTTPRequest> requests, int concurrencyLimit) {
+        if (concurrencyLimit < 1) throw new IllegalArgumentException("Concurrency limit must be positive!");
+        
+        this.requests = new ArrayList<>(requests);
+        this.concurrencyLimit = concurrencyLimit;
+    }
+    
+    /**
+     * Starts sending the requests, reporting each result as soon as it completes.
+     *
+     * @param listener the consumer notified with each result, possibly from several threads
+     */
+    public void start(Consumer<HTTPBatchResult> listener) {
+        Map<String, Host> hosts = new HashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            String authority = String.valueOf(requests.get(i).getURI().getAuthority());
+            hosts.computeIfAbsent(authority, k -> new Host(listener)).pending.add(i);
+        }
+        
+        for (Host host : hosts.values()) {
+            host.dispatch();
+        }
+    }
+    
+    /**
+     * Sends the requests and waits for all of them to complete.
+     *
+     * @return the results, in the order of the requests
+     * @throws HTTPException if the current thread is interrupted while waiting
+     */
+    public List<HTTPBatchResult> sendAll() throws HTTPException {
+        HTTPBatchResult[] results = new HTTPBatchResult[requests.size()];
+        CountDownLatch latch = new CountDownLatch(results.length);
+        
+        start(result -> {
+            results[result.getIndex()] = result;
+            latch.countDown();
+        });
+        
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new HTTPException(e);
+        }
+        return Arrays.asList(results);
+    }
+    
+    /**
+     * Sends the requests and returns their results as they complete.
+     * <p>
+     * The stream should be closed, as in a try-with-resources statement, when it may not be consumed to the end.
+     * Closing it closes the response bodies of the results not taken yet, including those of requests still running,
+     * so their connections are released.
+     *
+     * @return a stream of the results, in completion order
+     */
+    public Stream<HTTPBatchResult> stream() {
+        BlockingQueue<HTTPBatchResult> queue = new LinkedBlockingQueue<>();
+        boolean[] closed = new boolean[1];
+        
+        start(result -> {
+            synchronized (closed) {
+                if (!closed[0]) {
+                    queue.add(result);
+                    return;
+                }
+            }
+            discard(result);
+        });
+        
+        return Stream.generate(() -> {
+            try {
+                return queue.take();
+            } catch (InterruptedException e) {
+                throw new HTTPException(e);
+            }
+        }).limit(requests.size()).onClose(() -> {
+            synchronized (closed) {
+                closed[0] = true;
+            }
+            
+            HTTPBatchResult result;
+            while ((result = queue.poll()) != null) {
+                discard(result);
+            }
+        });
+    }
+    
+    private static void discard(HTTPBatchResult result) {
+        if (!result.isSuccess()) return;
+        
+        try {
+            result.getResponse().getBody().getNoClose(HTTPBodyParser.INPUT_STREAM).close();
+        } catch (IOException | HTTPException e) {}
+    }
+    
+    private class Host {
+        
+        private final Consumer<HTTPBatchResult> listener;
+        private final Queue<Integer> pending = new ArrayDeque<>();
+        private int running;
+        private boolean dispatching;
+        
+        private Host(Consumer<HTTPBatchResult> listener) {
+            this.listener = listener;
+        }
+        
+        private void dispatch() {
+            synchronized (this) {
+                // requests completing synchronously re-enter here, the running loop below picks up their slots
+                if (dispatching) return;
+                dispatching = true;
+            }
+            
+            try {
+                while (true) {
+                    List<Integer> next = new ArrayList<>();
+                    synchronized (this) {
+                        while (running < concurrencyLimit && !pending.isEmpty()) {
+                            running++;
+                            next.add(pending.poll());
+                        }
+                        if (next.isEmpty()) {
+                            dispatching = false;
+                            return;
+                        }
+                    }
+                    
+                    // requests are created outside the lock, create() may do work of its own
+                    for (int index : next) {
+                        send(index);
+                    }
+                }
+            } catch (RuntimeException | Error e) {
+                synchronized (this) {
+                    dispatching = false;
+                }
+                throw e;
+            }
+        }
+        
+        private void send(int index) {
+            HTTPRequest request = requests.get(index);
+            
+            CompletableFuture<HTTPResponse> future;
+            try {
+                future = request.getHTTP().submit(request::send);
+            } catch (RejectedExecutionException e) {
+                future = CompletableFuture.failedFuture(new HTTPException(e));
+            }
+            
+            future.whenComplete((response, error) -> {
+                synchronized (this) {
+                    running--;
+                }
+                
+                try {
+                    listener.accept(new HTTPBatchResult(index, request, response, error != null ? toHTTPException(error) : null));
+                } finally {
+                    dispatch();
+                }
+            });
+        }
+    }
+    
+    private static HTTPException toHTTPException(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof HTTPException e ? e : new HTTPException(cause);
+    }
+}
@@ -0,0 +1,77 @@
+package fluff.http.request;
+
+import fluff.http.HTTPException;
+import fluff.http.response.HTTPResponse;
+
+/**
+ * Represents the outcome of a single request sent as part of an {@link HTTPBatch}.
+ */
+public class HTTPBatchResult {
+    
+    private final int index;
+    private final HTTPRequest request;
+    private final HTTPResponse response;
+    private final HTTPException exception;
+    
+    /**
+     * Constructs a new HTTPBatchResult.
+     *
+     * @param index the position of the request in the batch
+     * @param request the request that was sent
+     * @param response the response, or null if the request failed
+     * @param exception the failure, or null if the request succeeded
+     */
+    public HTTPBatchResult(int index, HTTPRequest request, HTTPResponse response, HTTPException exception) {
+        this.index = index;
+        this.request = request;
+        this.response = response;
+        this.exception = exception;
+    }
+    
+    /**
+     * Returns the position of the request in the batch.
+     *
+     * @return the index of the request
+     */
+    public int getIndex() {
+        return index;
+    }
+    
+    /**
+     * Returns the request that was sent.
+     *
+     * @return the HTTP request
+     */
+    public HTTPRequest getRequest() {
+        return request;
+    }
+    
+    /**
+     * Returns the response of the request.
+     *
+     * @return the HTTP response
+     * @throws HTTPException if the request failed
+     */
+    public HTTPResponse getResponse() throws HTTPException {
+        if (exception != null) throw exception;
+        return response;
+    }
+    
+    /**
+     * Returns the failure of the request.
+     *
+     * @return the exception, or null if the request succeeded
+     */
+    public HTTPException getException() {
+        return exception;
+    }
+    
+    /**
+     * Returns whether the request succeeded.
+     *
+     * @return true if a response was received, false otherwise
+     */
+    public boolean isSuccess() {
+        return exception == null;
+    }
+}
@@ -0,0 +1,28 @@
+package fluff.http.request;
+
+import java.net.http.HttpRequest;
+
+import fluff.http.HTTPException;
+import fluff.http.response.HTTPResponse;
+
+/**
+ * Intercepts the exchanges of the requests of an HTTP instance, between the creation of the
+ * {@link HttpRequest} and its transmission.
+ * <p>
+ * An interceptor can pass the request on unchanged or modified, for example with
+ * {@link HttpRequest#newBuilder(HttpRequest, java.util.function.BiPredicate)}, return a response of its own without
+ * proceeding, or return the proceeded response with a wrapped body using {@link HTTPResponse#withBody}.
+ */
+@FunctionalInterface
+public interface HTTPInterceptor {
+    
+    /**
+     * Intercepts an exchange.
+     *
+     * @param chain the chain, used to proceed to the next interceptor and eventually the network
+     * @param request the request about to be sent
+     * @return the HTTP response
+     * @throws HTTPException if an error occurs while intercepting or sending the request
+     */
+    HTTPResponse intercept(HTTPInterceptorChain chain, HttpRequest request) throws HTTPException;
+}
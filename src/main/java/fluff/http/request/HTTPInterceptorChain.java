@@ -0,0 +1,60 @@
+package fluff.http.request;
+
+import java.net.http.HttpRequest;
+import java.util.List;
+
+import fluff.http.HTTPException;
+import fluff.http.response.HTTPResponse;
+
+/**
+ * The interceptors an exchange goes through, ending with the transmission over the network.
+ * <p>
+ * A single chain is created per exchange and walked by index, so proceeding allocates nothing.
+ * An interceptor may proceed more than once, e.g. to resend after refreshing credentials, as long as
+ * the request body is repeatable. A chain must only be used on the thread of the exchange.
+ */
+public final class HTTPInterceptorChain {
+    
+    private final HTTPRequest request;
+    private final List<HTTPInterceptor> interceptors;
+    private int index;
+    
+    /**
+     * Constructs a new HTTPInterceptorChain.
+     *
+     * @param request the request being exchanged
+     * @param interceptors the interceptors, in order
+     */
+    HTTPInterceptorChain(HTTPRequest request, List<HTTPInterceptor> interceptors) {
+        this.request = request;
+        this.interceptors = interceptors;
+    }
+    
+    /**
+     * Passes the request to the next interceptor, or sends it over the network after the last one.
+     *
+     * @param httpRequest the request to send
+     * @return the HTTP response
+     * @throws HTTPException if an error occurs while sending the request
+     */
+    public HTTPResponse proceed(HttpRequest httpRequest) throws HTTPException {
+        int i = index;
+        if (i == interceptors.size()) return request.transmit(httpRequest);
+        
+        index = i + 1;
+        try {
+            return interceptors.get(i).intercept(this, httpRequest);
+        } finally {
+            index = i;
+        }
+    }
+    
+    /**
+     * Returns the request being exchanged.
+     *
+     * @return the HTTP request
+     */
+    public HTTPRequest getRequest() {
+        return request;
+    }
+}
@@ -2,21 +2,46 @@ package fluff.http.request;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.http.HttpRequest;
 import java.net.http.HttpRequest.BodyPublisher;
 import java.net.http.HttpResponse;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
 import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import fluff.http.HTTP;
 import fluff.http.HTTPException;
+import fluff.http.body.DecodingInputStream;
 import fluff.http.body.HTTPBody;
 import fluff.http.body.HTTPBodyParser;
+import fluff.http.breaker.HTTPCircuitBreaker;
+import fluff.http.cache.HTTPCache;
+import fluff.http.hedge.HTTPHedgePolicy;
+import fluff.http.limit.HTTPRateLimits;
+import fluff.http.metrics.HTTPMetrics;
 import fluff.http.head.HTTPHead;
+import fluff.http.head.HTTPHeader;
+import fluff.http.head.value.values.ContentEncodings;
 import fluff.http.response.HTTPResponse;
 import fluff.http.response.HTTPResponseStatus;
+import fluff.http.retry.HTTPRetryPolicy;
 
 /**
  * Represents an HTTP request.
@@ -28,10 +53,16 @@ public class HTTPRequest {
     private final URI uri;
     
     protected Duration timeout = Duration.ofSeconds(15);
+    protected boolean compression;
+    protected HTTPRetryPolicy retryPolicy;
+    protected HTTPHedgePolicy hedgePolicy;
     
     protected HTTPHead head = HTTPHead.of();
     protected HTTPBody body = HTTPBody.of();
     
+    // when the request was last sent, for the queue time of its metrics
+    private volatile long queuedAt;
+    
     /**
      * Constructs a new HTTPRequest with the specified HTTP instance, method, and URI.
      *
@@ -43,6 +74,9 @@ public class HTTPRequest {
         this.http = http;
         this.method = method;
         this.uri = uri;
+        this.compression = http.isCompression();
+        this.retryPolicy = http.getRetryPolicy();
+        this.hedgePolicy = http.getHedgePolicy();
     }
     
     /**
@@ -63,43 +97,480 @@ public class HTTPRequest {
             }
         }
         
-        InputStreamRequest inputStreamRequest = new InputStreamRequest();
+        if (isNegotiatingCompression()) request.header(HTTPHeader.ACCEPT_ENCODING.getName(), "gzip, deflate");
+        if (body.getEncoding() != null) request.setHeader(HTTPHeader.CONTENT_ENCODING.getName(), body.getEncoding().getHTTPHeaderValue());
         
-        BodyPublisher bodyPublisher = body.isEmpty() ? HttpRequest.BodyPublishers.noBody()
-                : HttpRequest.BodyPublishers.ofInputStream(() -> {
-                	inputStreamRequest.inputStream = body.getNoClose(HTTPBodyParser.INPUT_STREAM);
-                	return inputStreamRequest.inputStream;
-                });
-        request.method(method.name(), bodyPublisher);
+        InputStreamRequest inputStreamRequest = new InputStreamRequest();
+        request.method(method.name(), createPublisher(inputStreamRequest));
         
         inputStreamRequest.request = request.build();
         return inputStreamRequest;
     }
     
+    /**
+     * Creates the publisher of the body, recording a body stream in the specified InputStreamRequest once opened.
+     *
+     * @param inputStreamRequest the InputStreamRequest closing the body stream after the exchange
+     * @return the body publisher
+     * @throws HTTPException if an error occurs while creating the publisher
+     */
+    BodyPublisher createPublisher(InputStreamRequest inputStreamRequest) throws HTTPException {
+        BodyPublisher bodyPublisher = body.isEmpty() ? HttpRequest.BodyPublishers.noBody() : body.getPublisher();
+        if (bodyPublisher == null) {
+            bodyPublisher = HttpRequest.BodyPublishers.ofInputStream(() -> {
+            	inputStreamRequest.inputStream = body.getNoClose(HTTPBodyParser.INPUT_STREAM);
+            	return inputStreamRequest.inputStream;
+            });
+            
+            if (body.hasLength()) bodyPublisher = HttpRequest.BodyPublishers.fromPublisher(bodyPublisher, body.getLength());
+        }
+        return bodyPublisher;
+    }
+    
+    /**
+     * Wraps the raw HttpResponse into an HTTPResponse.
+     *
+     * @param response the raw HttpResponse
+     * @return the HTTP response
+     */
+    protected HTTPResponse createResponse(HttpResponse<InputStream> response) {
+        return createResponse(response, response.body());
+    }
+    
+    /**
+     * Wraps the raw HttpResponse into an HTTPResponse reading the specified body stream.
+     *
+     * @param response the raw HttpResponse
+     * @param in the stream of the response body, as received
+     * @return the HTTP response
+     */
+    protected HTTPResponse createResponse(HttpResponse<?> response, InputStream in) {
+        HTTPHead head = HTTPHead.of(response.headers());
+        List<ContentEncodings> encodings = compression ? ContentEncodings.parse(response.headers().allValues(HTTPHeader.CONTENT_ENCODING.getName())) : null;
+        if (encodings == null || encodings.isEmpty()) return createResponse(response, head, HTTPBody.of(() -> in, getBodyLength(response, head), false), null);
+        
+        DecodingInputStream decoder = new DecodingInputStream(in, encodings);
+        return createResponse(response, head, HTTPBody.of(HTTPBodyParser.INPUT_STREAM, decoder), decoder);
+    }
+    
+    /**
+     * Wraps the raw HttpResponse into an HTTPResponse with the specified body.
+     *
+     * @param response the raw HttpResponse
+     * @param body the body of the response
+     * @param decoder the stream decoding the body, or null if the body is not decoded
+     * @return the HTTP response
+     */
+    protected HTTPResponse createResponse(HttpResponse<?> response, HTTPBody body, DecodingInputStream decoder) {
+        return createResponse(response, HTTPHead.of(response.headers()), body, decoder);
+    }
+    
+    /**
+     * Wraps the raw HttpResponse into an HTTPResponse with the specified head and body.
+     *
+     * @param response the raw HttpResponse
+     * @param head the head of the response
+     * @param body the body of the response
+     * @param decoder the stream decoding the body, or null if the body is not decoded
+     * @return the HTTP response
+     */
+    protected HTTPResponse createResponse(HttpResponse<?> response, HTTPHead head, HTTPBody body, DecodingInputStream decoder) {
+        return new HTTPResponse(
+                http,
+                this,
+                response.uri(),
+                HTTPResponseStatus.byCode(response.statusCode()),
+                head,
+                body,
+                decoder
+                );
+    }
+    
+    // the length of the received body, which parsers use to size their buffers, the Content-Length of responses
+    // to HEAD and of 204 and 304 responses describing a body that is not sent
+    private static long getBodyLength(HttpResponse<?> response, HTTPHead head) {
+        if (response.statusCode() == 204 || response.statusCode() == 304) return -1;
+        if (response.request().method().equals("HEAD")) return -1;
+        
+        return head.getContentLength();
+    }
+    
+    /**
+     * Returns whether the request adds its own Accept-Encoding header, which it does
+     * when compression is enabled and no such header was set explicitly.
+     *
+     * @return true if compression is negotiated by the request, false otherwise
+     */
+    protected boolean isNegotiatingCompression() {
+        return compression && head.get(HTTPHeader.ACCEPT_ENCODING.getName()) == null;
+    }
+    
     /**
      * Sends the HTTP request and returns the response.
+     * <p>
+     * The request goes through the single-flight coalescer and the cache of the HTTP instance, if any.
      *
      * @return the HTTP response
      * @throws HTTPException if an error occurs while sending the request
      */
-    @SuppressWarnings("resource")
 	public HTTPResponse send() throws HTTPException {
+		HTTPSingleFlight singleFlight = http.getSingleFlight();
+		return singleFlight != null ? singleFlight.send(this, this::sendCached) : sendCached();
+	}
+	
+	private HTTPResponse sendCached() throws HTTPException {
+		HTTPCache cache = http.getCache();
+		return cache != null ? cache.send(this) : execute();
+	}
+    
+    /**
+     * Sends the HTTP request over the network and returns the response, bypassing the cache.
+     * <p>
+     * Slow requests are hedged according to the hedge policy of the request, if any,
+     * each attempt is retried according to its retry policy, if any,
+     * and each exchange waits for the rate limits of the HTTP instance
+     * then goes through its circuit breaker, if any.
+     *
+     * @return the HTTP response
+     * @throws HTTPException if an error occurs while sending the request
+     */
+	public HTTPResponse execute() throws HTTPException {
+		queuedAt = System.nanoTime();
+		return hedgePolicy != null ? hedgePolicy.send(this, this::executeAttempt) : executeAttempt();
+	}
+	
+	private HTTPResponse executeAttempt() throws HTTPException {
+		return retryPolicy != null ? retryPolicy.send(this, this::limitedExchange) : limitedExchange();
+	}
+	
+	private HTTPResponse limitedExchange() throws HTTPException {
+		HTTPRateLimits rateLimits = http.getRateLimits();
+		if (rateLimits != null) rateLimits.acquire(this);
+		return guardedExchange();
+	}
+	
+	private HTTPResponse guardedExchange() throws HTTPException {
+		HTTPCircuitBreaker circuitBreaker = http.getCircuitBreaker();
+		return circuitBreaker != null ? circuitBreaker.send(this, this::exchange) : exchange();
+	}
+    
+    /**
+     * Performs a single exchange of the HTTP request over the network, through the interceptors of the HTTP instance.
+     *
+     * @return the HTTP response
+     * @throws HTTPException if an error occurs while sending the request
+     */
+	protected HTTPResponse exchange() throws HTTPException {
+		InputStreamRequest inputStreamRequest = create();
+		try {
+			List<HTTPInterceptor> interceptors = http.getInterceptors();
+			if (interceptors.isEmpty()) return transmit(inputStreamRequest.request);
+			
+			return new HTTPInterceptorChain(this, interceptors).proceed(inputStreamRequest.request);
+		} finally {
+			inputStreamRequest.closeQuietly();
+		}
+    }
+    
+    /**
+     * Sends the specified request over the network, as the last link of the interceptor chain.
+     *
+     * @param request the request to send
+     * @return the HTTP response
+     * @throws HTTPException if an error occurs while sending the request
+     */
+	HTTPResponse transmit(HttpRequest request) throws HTTPException {
+		HTTPMetrics metrics = http.getMetrics();
+		HTTPMetrics.Exchange exchange = metrics != null ? metrics.start(this, request, queuedAt) : null;
         try {
-        	InputStreamRequest inputStreamRequest = create();
-            HttpResponse<InputStream> response = http.getClient().send(inputStreamRequest.request, HttpResponse.BodyHandlers.ofInputStream());
-            if (inputStreamRequest.inputStream != null) inputStreamRequest.inputStream.close();
+            HttpResponse<InputStream> response = http.getClient().send(request, HttpResponse.BodyHandlers.ofInputStream());
+            if (exchange == null) return createResponse(response);
             
-            return new HTTPResponse(
-                    http,
-                    this,
-                    response.uri(),
-                    HTTPResponseStatus.byCode(response.statusCode()),
-                    HTTPHead.of(response.headers().map()),
-                    HTTPBody.of(HTTPBodyParser.INPUT_STREAM, response.body())
-                    );
+            exchange.onHeaders(response.statusCode());
+            return createResponse(response, exchange.wrap(response.body()));
         } catch (IOException | InterruptedException e) {
+            if (exchange != null) exchange.onError();
             throw new HTTPException(e);
+        } catch (RuntimeException e) {
+            if (exchange != null) exchange.onError();
+            throw e;
         }
+	}
+    
+    /**
+     * Sends the HTTP request and writes a successful response body straight into the specified file.
+     *
+     * @param path the file to write to
+     * @return the HTTP response, whose body reads the written file
+     * @throws HTTPException if an error occurs while sending the request
+     */
+    public HTTPResponse download(Path path) throws HTTPException {
+        return download(path, false);
+    }
+    
+    /**
+     * Sends the HTTP request and writes a successful response body straight into the specified file.
+     * <p>
+     * When resuming, a Range header requests the bytes following the current file size, guarded by an If-Range header
+     * so that a changed resource is sent in full and rewrites the file. The If-Range header of the request is kept if it
+     * has one, e.g. a previously received ETag, otherwise the modification time of the file is sent, which downloads set
+     * to the Last-Modified date of their response. The body of a {@link HTTPResponseStatus#PARTIAL_CONTENT} answer is
+     * written at the start of its Content-Range, which must not lie past the end of the file.
+     * The file is left untouched for unsuccessful responses, whose body is empty.
+     * Like {@link #execute()}, the download waits for the rate limits of the HTTP instance.
+     *
+     * @param path the file to write to
+     * @param resume whether to resume a previous partial download
+     * @return the HTTP response, whose body reads the written file
+     * @throws HTTPException if an error occurs while sending the request, or a partial answer does not continue the file
+     */
+    public HTTPResponse download(Path path, boolean resume) throws HTTPException {
+        queuedAt = System.nanoTime();
+        HTTPRateLimits rateLimits = http.getRateLimits();
+        if (rateLimits != null) rateLimits.acquire(this);
+        
+        HTTPMetrics.Exchange exchange = null;
+        InputStreamRequest inputStreamRequest = null;
+        // the offset the body is written at, and the Last-Modified date of a written body
+        long[] offset = { -1 };
+        String[] lastModified = new String[1];
+        try {
+            inputStreamRequest = create();
+            
+            HttpRequest request = inputStreamRequest.request;
+            long size = resume && Files.exists(path) ? Files.size(path) : 0;
+            boolean negotiating = isNegotiatingCompression();
+            if (size > 0 || negotiating) {
+                // downloads are stored as received, so they must not be content-encoded
+                HttpRequest.Builder builder = HttpRequest.newBuilder(request,
+                        (name, value) -> !negotiating || !name.equalsIgnoreCase(HTTPHeader.ACCEPT_ENCODING.getName()));
+                if (size > 0) {
+                    builder.setHeader("Range", "bytes=" + size + "-");
+                    if (!head.contains("If-Range")) builder.setHeader("If-Range", DateTimeFormatter.RFC_1123_DATE_TIME.format(Files.getLastModifiedTime(path).toInstant().atZone(ZoneOffset.UTC)));
+                }
+                request = builder.build();
+            }
+            
+            HTTPMetrics metrics = http.getMetrics();
+            HTTPMetrics.Exchange recorder = exchange = metrics != null ? metrics.start(this, request, queuedAt) : null;
+            
+            HttpResponse<Path> response = http.getClient().send(request, info -> {
+                int code = info.statusCode();
+                if (recorder != null) recorder.onHeaders(code);
+                if (code / 100 != 2) return HttpResponse.BodySubscribers.replacing(null);
+                
+                lastModified[0] = info.headers().firstValue("Last-Modified").orElse(null);
+                if (code == HTTPResponseStatus.PARTIAL_CONTENT.getCode() && size > 0) {
+                    long rangeStart = getRangeStart(info.headers().firstValue("Content-Range").orElse(null));
+                    // a range past the end of the file would leave a gap
+                    if (rangeStart < 0 || rangeStart > size) {
+                        lastModified[0] = null;
+                        return HttpResponse.BodySubscribers.replacing(null);
+                    }
+                    
+                    offset[0] = rangeStart;
+                    truncate(path, rangeStart);
+                    return HttpResponse.BodySubscribers.ofFile(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                }
+                
+                offset[0] = 0;
+                return HttpResponse.BodySubscribers.ofFile(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            });
+            
+            Path file = response.body();
+            if (file == null && response.statusCode() == HTTPResponseStatus.PARTIAL_CONTENT.getCode() && size > 0) {
+                throw new HTTPException("Partial response does not continue the file at byte " + size + ": " + response.headers().firstValue("Content-Range").orElse(null));
+            }
+            if (exchange != null) exchange.onBody(file != null ? Files.size(file) - offset[0] : 0);
+            
+            return createResponse(response, file != null ? HTTPBody.of(file) : HTTPBody.of(), null);
+        } catch (IOException | InterruptedException | UncheckedIOException e) {
+            if (exchange != null) exchange.onError();
+            throw new HTTPException(e);
+        } catch (RuntimeException e) {
+            if (exchange != null) exchange.onError();
+            throw e;
+        } finally {
+            if (inputStreamRequest != null) inputStreamRequest.closeQuietly();
+            // lets a later resume ask whether the resource is still the one partially written
+            if (lastModified[0] != null) setLastModified(path, lastModified[0]);
+        }
+    }
+    
+    private static long getRangeStart(String contentRange) {
+        // bytes <first>-<last>/<length>
+        if (contentRange == null || !contentRange.regionMatches(true, 0, "bytes ", 0, 6)) return -1;
+        
+        int dash = contentRange.indexOf('-', 6);
+        if (dash < 0) return -1;
+        
+        try {
+            return Long.parseLong(contentRange.substring(6, dash).trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+    
+    private static void truncate(Path path, long size) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private static void setLastModified(Path path, String date) {
+        try {
+            Instant instant = ZonedDateTime.parse(date.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            if (Files.exists(path)) Files.setLastModifiedTime(path, FileTime.from(instant));
+        } catch (DateTimeParseException | IOException e) {}
+    }
+    
+    /**
+     * Sends the HTTP request asynchronously.
+     * <p>
+     * The returned future completes on the executor of the HTTP instance if it has one,
+     * otherwise on the thread that received the response.
+     *
+     * @return a future completing with the HTTP response
+     */
+    public CompletableFuture<HTTPResponse> sendAsync() {
+        Executor executor = http.getExecutor();
+        return sendAsync(executor != null ? executor : Runnable::run);
+    }
+    
+    /**
+     * Sends the HTTP request asynchronously, completing the returned future on the specified executor.
+     * <p>
+     * Cancelling the returned future cancels the exchange and closes the request body stream.
+     * The request is sent over the network in a single attempt, bypassing the cache and the retry and hedge policies,
+     * but guarded by the circuit breaker of the HTTP instance, if any.
+     * If the rate limits of the HTTP instance delay the request, it is sent once its permits are available, without blocking the caller.
+     * If the HTTP instance has interceptors, the exchange runs through them on its {@linkplain HTTP#getBlockingExecutor() blocking executor},
+     * and cancelling the returned future interrupts it.
+     *
+     * @param executor the executor used to complete the returned future
+     * @return a future completing with the HTTP response, or exceptionally with an {@link HTTPException}
+     */
+    public CompletableFuture<HTTPResponse> sendAsync(Executor executor) {
+        queuedAt = System.nanoTime();
+        HTTPRateLimits rateLimits = http.getRateLimits();
+        long wait;
+        try {
+            wait = rateLimits != null ? rateLimits.reserve(this) : 0;
+        } catch (HTTPException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        
+        CompletableFuture<HTTPResponse> future = new CompletableFuture<>();
+        if (wait > 0) CompletableFuture.delayedExecutor(wait, TimeUnit.NANOSECONDS, executor).execute(() -> exchangeAsync(future, executor));
+        else exchangeAsync(future, executor);
+        return future;
+    }
+    
+    private void exchangeAsync(CompletableFuture<HTTPResponse> future, Executor executor) {
+        // cancelled while waiting for a rate limit permit
+        if (future.isDone()) return;
+        
+        // interceptors are blocking, the exchange then occupies a thread of the blocking executor
+        if (!http.getInterceptors().isEmpty()) {
+            BlockingExchange task = new BlockingExchange(future, executor);
+            future.whenComplete((response, error) -> {
+                if (future.isCancelled()) task.cancel();
+            });
+            
+            try {
+                http.getBlockingExecutor().execute(task);
+            } catch (RejectedExecutionException e) {
+                future.completeExceptionally(new HTTPException(e));
+            }
+            return;
+        }
+        
+        InputStreamRequest inputStreamRequest;
+        try {
+            inputStreamRequest = create();
+        } catch (HTTPException e) {
+            future.completeExceptionally(e);
+            return;
+        }
+        
+        HTTPCircuitBreaker circuitBreaker = http.getCircuitBreaker();
+        HTTPCircuitBreaker.Permit permit;
+        try {
+            permit = circuitBreaker != null ? circuitBreaker.acquire(this) : null;
+        } catch (HTTPException e) {
+            inputStreamRequest.closeQuietly();
+            future.completeExceptionally(e);
+            return;
+        }
+        
+        HTTPMetrics metrics = http.getMetrics();
+        HTTPMetrics.Exchange recorder = metrics != null ? metrics.start(this, inputStreamRequest.request, queuedAt) : null;
+        
+        CompletableFuture<HttpResponse<InputStream>> exchange = http.getClient().sendAsync(inputStreamRequest.request, HttpResponse.BodyHandlers.ofInputStream());
+        
+        exchange.whenCompleteAsync((response, error) -> {
+            inputStreamRequest.closeQuietly();
+            if (permit != null) {
+                if (error != null) permit.onError(error);
+                else permit.onResponse(HTTPResponseStatus.byCode(response.statusCode()));
+            }
+            
+            if (error != null) {
+                if (recorder != null) recorder.onError();
+                
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                future.completeExceptionally(cause instanceof HTTPException ? cause : new HTTPException(cause));
+                return;
+            }
+            
+            InputStream in = response.body();
+            if (recorder != null) {
+                recorder.onHeaders(response.statusCode());
+                in = recorder.wrap(in);
+            }
+            
+            // the caller gave up on this response, nobody else will close it
+            if (!future.complete(createResponse(response, in))) {
+                try {
+                    in.close();
+                } catch (IOException e) {}
+            }
+        }, executor);
+        
+        future.whenComplete((response, error) -> {
+            if (!future.isCancelled()) return;
+            
+            exchange.cancel(true);
+            inputStreamRequest.closeQuietly();
+        });
+    }
+    
+    /**
+     * Creates a copy of this request, sharing its head and body.
+     *
+     * @return a new HTTPRequest with the same settings
+     */
+    public HTTPRequest copy() {
+        HTTPRequest copy = new HTTPRequest(http, method, uri);
+        copy.timeout = timeout;
+        copy.compression = compression;
+        copy.retryPolicy = retryPolicy;
+        copy.hedgePolicy = hedgePolicy;
+        copy.head = head;
+        copy.body = body;
+        return copy;
+    }
+    
+    /**
+     * Compiles an immutable template from the current settings of this request, to send it repeatedly.
+     *
+     * @return the compiled template
+     * @throws HTTPException if the body of the request is not repeatable or a header is not valid
+     */
+    public HTTPRequestTemplate compile() throws HTTPException {
+        return HTTPRequestTemplate.of(this);
     }
     
     /**
@@ -128,7 +599,7 @@ public class HTTPRequest {
     public URI getURI() {
         return uri;
     }
-    
+	
 	/**
 	 * Returns the timeout of the request.
 	 *
@@ -137,7 +608,7 @@ public class HTTPRequest {
     public Duration getTimeout() {
     	return timeout;
     }
-    
+	
 	/**
 	 * Sets the timeout of the request.
 	 *
@@ -149,6 +620,72 @@ public class HTTPRequest {
 		return this;
 	}
     
+    /**
+     * Returns whether the request negotiates response compression.
+     *
+     * @return true if compression is enabled, false otherwise
+     */
+    public boolean isCompression() {
+        return compression;
+    }
+    
+    /**
+     * Sets whether the request negotiates response compression.
+     * <p>
+     * Defaults to the setting of the HTTP instance.
+     *
+     * @param compression true to enable compression, false otherwise
+     * @return this HTTPRequest instance
+     */
+    public HTTPRequest setCompression(boolean compression) {
+        this.compression = compression;
+        return this;
+    }
+    
+    /**
+     * Returns the retry policy of the request.
+     *
+     * @return the retry policy, or null if the request is not retried
+     */
+    public HTTPRetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+    
+    /**
+     * Sets the retry policy of the request.
+     * <p>
+     * Defaults to the retry policy of the HTTP instance.
+     *
+     * @param retryPolicy the retry policy, or null to not retry the request
+     * @return this HTTPRequest instance
+     */
+    public HTTPRequest setRetryPolicy(HTTPRetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+        return this;
+    }
+    
+    /**
+     * Returns the hedge policy of the request.
+     *
+     * @return the hedge policy, or null if the request is not hedged
+     */
+    public HTTPHedgePolicy getHedgePolicy() {
+        return hedgePolicy;
+    }
+    
+    /**
+     * Sets the hedge policy of the request.
+     * <p>
+     * Defaults to the hedge policy of the HTTP instance.
+     *
+     * @param hedgePolicy the hedge policy, or null to not hedge the request
+     * @return this HTTPRequest instance
+     */
+    public HTTPRequest setHedgePolicy(HTTPHedgePolicy hedgePolicy) {
+        this.hedgePolicy = hedgePolicy;
+        return this;
+    }
+    
     /**
      * Returns the HTTP headers of the request.
      *
@@ -188,4 +725,65 @@ public class HTTPRequest {
         this.body = body;
         return this;
     }
+    
+    // an exchange through the interceptors, interrupted if its future is cancelled
+    private final class BlockingExchange implements Runnable {
+        
+        private final CompletableFuture<HTTPResponse> future;
+        private final Executor executor;
+        private Thread runner;
+        private boolean cancelled;
+        
+        private BlockingExchange(CompletableFuture<HTTPResponse> future, Executor executor) {
+            this.future = future;
+            this.executor = executor;
+        }
+        
+        @Override
+        public void run() {
+            synchronized (this) {
+                if (cancelled || future.isDone()) return;
+                runner = Thread.currentThread();
+            }
+            
+            HTTPResponse response = null;
+            Throwable error = null;
+            try {
+                response = guardedExchange();
+            } catch (Throwable t) {
+                error = t;
+            } finally {
+                synchronized (this) {
+                    runner = null;
+                    // a late cancellation must not interrupt the next task of this thread
+                    Thread.interrupted();
+                }
+            }
+            
+            HTTPResponse result = response;
+            Throwable cause = error;
+            try {
+                executor.execute(() -> complete(result, cause));
+            } catch (RejectedExecutionException e) {
+                complete(result, cause);
+            }
+        }
+        
+        private void complete(HTTPResponse response, Throwable error) {
+            if (error != null) {
+                future.completeExceptionally(error instanceof HTTPException ? error : new HTTPException(error));
+            } else if (!future.complete(response)) {
+                try {
+                    // the stream is closed once parsed
+                    response.getBody().get(HTTPBodyParser.INPUT_STREAM);
+                } catch (HTTPException e) {}
+            }
+        }
+        
+        private synchronized void cancel() {
+            cancelled = true;
+            if (runner != null) runner.interrupt();
+        }
+    }
+
 }
@@ -4,10 +4,25 @@ package fluff.http.request;
  * Enumeration representing HTTP request methods.
  */
 public enum HTTPRequestMethod {
-    GET,
-    POST,
-    PUT,
-    DELETE,
-    PATCH,
+    GET(true),
+    POST(false),
+    PUT(true),
+    DELETE(true),
+    PATCH(false),
     ;
+    
+    private final boolean idempotent;
+    
+    private HTTPRequestMethod(boolean idempotent) {
+        this.idempotent = idempotent;
+    }
+    
+    /**
+     * Returns whether sending a request with this method several times has the same effect as sending it once.
+     *
+     * @return true if the method is idempotent, false otherwise
+     */
+    public boolean isIdempotent() {
+        return idempotent;
+    }
 }
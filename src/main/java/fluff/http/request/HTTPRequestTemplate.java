@@ -0,0 +1,252 @@
+package fluff.http.request;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import fluff.http.HTTP;
+import fluff.http.HTTPException;
+import fluff.http.body.HTTPBody;
+import fluff.http.head.HTTPHead;
+import fluff.http.response.HTTPResponse;
+
+/**
+ * An immutable request compiled once, to be sent any number of times from any thread.
+ * <p>
+ * The HttpRequest is built when the template is compiled, so sending skips rebuilding it and copying the headers.
+ * A body only readable as a stream gets a new publisher on each send, so each exchange opens and closes its own stream.
+ * Each send still goes through the single-flight coalescer, the cache, the policies, the rate limits, the circuit breaker,
+ * the interceptors and the metrics of the HTTP instance, like {@link HTTPRequest#send()}.
+ * <p>
+ * Derived templates share the built request of their parent and only apply their own override.
+ */
+public final class HTTPRequestTemplate {
+    
+    private final HTTPRequest request;
+    private final HttpRequest httpRequest;
+    // whether the body has no native publisher, the compiled one then reads a stream of a single send
+    private final boolean streamed;
+    
+    private HTTPRequestTemplate(HTTPRequest request, HttpRequest httpRequest) {
+        this.request = request;
+        this.httpRequest = httpRequest;
+        this.streamed = !request.body.isEmpty() && request.body.getPublisher() == null;
+    }
+    
+    /**
+     * Sends the request and returns the response.
+     *
+     * @return the HTTP response
+     * @throws HTTPException if an error occurs while sending the request
+     */
+    public HTTPResponse send() throws HTTPException {
+        return new CompiledRequest(this).send();
+    }
+    
+    /**
+     * Sends the request asynchronously.
+     *
+     * @return a future completing with the HTTP response
+     * @see HTTPRequest#sendAsync()
+     */
+    public CompletableFuture<HTTPResponse> sendAsync() {
+        return new CompiledRequest(this).sendAsync();
+    }
+    
+    /**
+     * Returns a new mutable request with the settings of this template.
+     * <p>
+     * The request reuses the compiled HttpRequest as long as its settings are left unchanged.
+     *
+     * @return a new HTTPRequest
+     */
+    public HTTPRequest toRequest() {
+        return new CompiledRequest(this);
+    }
+    
+    /**
+     * Derives a template with the specified header set, replacing its previous values.
+     *
+     * @param name the header name
+     * @param value the header value
+     * @return the derived template
+     * @throws HTTPException if the header is not valid
+     */
+    public HTTPRequestTemplate withHeader(String name, String value) throws HTTPException {
+        HTTPHead head = HTTPHead.builder().add(request.head).remove(name).add(name, value).build();
+        try {
+            return new HTTPRequestTemplate(request.copy().setHead(head), HttpRequest.newBuilder(httpRequest, (n, v) -> true).setHeader(name, value).build());
+        } catch (IllegalArgumentException e) {
+            throw new HTTPException(e);
+        }
+    }
+    
+    /**
+     * Derives a template without the specified header.
+     *
+     * @param name the header name
+     * @return the derived template
+     */
+    public HTTPRequestTemplate withoutHeader(String name) {
+        HTTPHead head = HTTPHead.builder().add(request.head).remove(name).build();
+        return new HTTPRequestTemplate(request.copy().setHead(head), HttpRequest.newBuilder(httpRequest, (n, v) -> !n.equalsIgnoreCase(name)).build());
+    }
+    
+    /**
+     * Derives a template sent to the specified URI.
+     *
+     * @param uri the URI
+     * @return the derived template
+     */
+    public HTTPRequestTemplate withURI(URI uri) {
+        HTTPRequest copy = new HTTPRequest(request.getHTTP(), request.getMethod(), uri);
+        copy.timeout = request.timeout;
+        copy.compression = request.compression;
+        copy.retryPolicy = request.retryPolicy;
+        copy.hedgePolicy = request.hedgePolicy;
+        copy.head = request.head;
+        copy.body = request.body;
+        return new HTTPRequestTemplate(copy, HttpRequest.newBuilder(httpRequest, (n, v) -> true).uri(uri).build());
+    }
+    
+    /**
+     * Derives a template with the specified timeout.
+     *
+     * @param timeout the timeout, or null for none
+     * @return the derived template
+     */
+    public HTTPRequestTemplate withTimeout(Duration timeout) {
+        HTTPRequest copy = request.copy().setTimeout(timeout);
+        
+        // a built request cannot drop its timeout
+        if (timeout == null) return compile(copy);
+        return new HTTPRequestTemplate(copy, HttpRequest.newBuilder(httpRequest, (n, v) -> true).timeout(timeout).build());
+    }
+    
+    /**
+     * Derives a template with the specified body.
+     *
+     * @param body the body, which must be repeatable
+     * @return the derived template
+     * @throws HTTPException if the body is not repeatable
+     */
+    public HTTPRequestTemplate withBody(HTTPBody body) throws HTTPException {
+        return of(request.copy().setBody(body));
+    }
+    
+    /**
+     * Returns the HTTP instance the template is sent with.
+     *
+     * @return the HTTP instance
+     */
+    public HTTP getHTTP() {
+        return request.getHTTP();
+    }
+    
+    /**
+     * Returns the method of the template.
+     *
+     * @return the method
+     */
+    public HTTPRequestMethod getMethod() {
+        return request.getMethod();
+    }
+    
+    /**
+     * Returns the URI of the template.
+     *
+     * @return the URI
+     */
+    public URI getURI() {
+        return request.getURI();
+    }
+    
+    /**
+     * Returns the headers of the template.
+     *
+     * @return the HTTP head
+     */
+    public HTTPHead getHead() {
+        return request.getHead();
+    }
+    
+    /**
+     * Returns the body of the template.
+     *
+     * @return the HTTP body
+     */
+    public HTTPBody getBody() {
+        return request.getBody();
+    }
+    
+    /**
+     * Returns the compiled HttpRequest sent by the template.
+     *
+     * @return the HttpRequest
+     */
+    public HttpRequest getHttpRequest() {
+        return httpRequest;
+    }
+    
+    private static HTTPRequestTemplate compile(HTTPRequest request) {
+        return new HTTPRequestTemplate(request, request.create().request);
+    }
+    
+    /**
+     * Compiles a template from the current settings of the specified request.
+     * <p>
+     * Later changes to the request do not affect the template.
+     *
+     * @param request the request
+     * @return the compiled template
+     * @throws HTTPException if the body of the request is not repeatable or a header is not valid
+     */
+    public static HTTPRequestTemplate of(HTTPRequest request) throws HTTPException {
+        if (!request.body.isRepeatable()) throw new HTTPException("A template can only send a repeatable body!");
+        
+        try {
+            return compile(request.copy());
+        } catch (IllegalArgumentException e) {
+            throw new HTTPException(e);
+        }
+    }
+    
+    /**
+     * A request sending the HttpRequest compiled by its template, unless its settings were changed.
+     */
+    private static class CompiledRequest extends HTTPRequest {
+        
+        private final HTTPRequestTemplate template;
+        
+        private CompiledRequest(HTTPRequestTemplate template) {
+            super(template.request.getHTTP(), template.request.getMethod(), template.request.getURI());
+            this.template = template;
+            
+            HTTPRequest request = template.request;
+            this.timeout = request.timeout;
+            this.compression = request.compression;
+            this.retryPolicy = request.retryPolicy;
+            this.hedgePolicy = request.hedgePolicy;
+            this.head = request.head;
+            this.body = request.body;
+        }
+        
+        @Override
+        protected InputStreamRequest create() throws HTTPException {
+            HTTPRequest request = template.request;
+            if (head != request.head || body != request.body || timeout != request.timeout || compression != request.compression) return super.create();
+            
+            InputStreamRequest inputStreamRequest = new InputStreamRequest();
+            if (template.streamed) {
+                // the stream is bound to this send, which closes it after the exchange
+                inputStreamRequest.request = HttpRequest.newBuilder(template.httpRequest, (n, v) -> true)
+                        .method(getMethod().name(), createPublisher(inputStreamRequest))
+                        .build();
+            } else {
+                inputStreamRequest.request = template.httpRequest;
+            }
+            return inputStreamRequest;
+        }
+    }
+}
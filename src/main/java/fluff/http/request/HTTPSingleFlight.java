@@ -0,0 +1,214 @@
+package fluff.http.request;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+import fluff.functions.gen.TFunc;
+import fluff.http.HTTPException;
+import fluff.http.body.HTTPBody;
+import fluff.http.body.HTTPBodyParser;
+import fluff.http.response.HTTPResponse;
+
+/**
+ * Coalesces identical concurrent requests into a single exchange.
+ * <p>
+ * Requests are identical when they share their idempotent method, URI, compression setting and the values
+ * of the key headers, and have no body. While an exchange is in flight, identical requests wait for it instead
+ * of starting their own. If any request waits, the response body is buffered once and each request receives it
+ * as an independent {@link HTTPBody}, otherwise the response is returned untouched. A body larger than the
+ * maximum buffer size is not shared, the waiting requests then send their own exchanges.
+ */
+public class HTTPSingleFlight {
+    
+    /**
+     * The default maximum size of a shared body.
+     */
+    public static final int DEFAULT_MAX_BUFFER_SIZE = 1024 * 1024;
+    
+    private final ConcurrentMap<String, Flight> flights = new ConcurrentHashMap<>();
+    private final String[] keyHeaders;
+    private int maxBufferSize = DEFAULT_MAX_BUFFER_SIZE;
+    
+    /**
+     * Constructs a new HTTPSingleFlight.
+     *
+     * @param keyHeaders the names of the headers whose values must also match for requests to be coalesced
+     */
+    public HTTPSingleFlight(String... keyHeaders) {
+        this.keyHeaders = keyHeaders.clone();
+    }
+    
+    /**
+     * Sends the request, sharing the exchange with identical requests already in flight.
+     *
+     * @param request the request to send
+     * @param exchange the function performing the exchange when no identical request is in flight
+     * @return the HTTP response for this request
+     * @throws HTTPException if an error occurs while sending the request, or the shared exchange failed
+     */
+    public HTTPResponse send(HTTPRequest request, TFunc<HTTPResponse, HTTPException> exchange) throws HTTPException {
+        if (!request.getMethod().isIdempotent() || !request.getBody().isEmpty()) return exchange.invoke();
+        
+        String key = getKey(request);
+        Flight flight = new Flight();
+        Flight existing = flights.putIfAbsent(key, flight);
+        if (existing != null) {
+            // a flight closed to new waiters is about to be removed, its response is already taken
+            return existing.join() ? join(request, existing.result, exchange) : exchange.invoke();
+        }
+        
+        HTTPResponse response;
+        int waiters;
+        try {
+            response = exchange.invoke();
+        } catch (Throwable e) {
+            // waiters must be released whatever went wrong, an Error included
+            flight.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            waiters = flight.close();
+            flights.remove(key, flight);
+        }
+        
+        if (waiters == 0) return response;
+        return share(request, flight, response);
+    }
+    
+    /**
+     * Sets the maximum size of a shared body. Waiting requests send their own exchanges when the body is larger.
+     *
+     * @param maxBufferSize the maximum size, in bytes
+     * @return this HTTPSingleFlight instance
+     */
+    public HTTPSingleFlight setMaxBufferSize(int maxBufferSize) {
+        this.maxBufferSize = maxBufferSize;
+        return this;
+    }
+    
+    /**
+     * Returns the maximum size of a shared body.
+     *
+     * @return the maximum size, in bytes
+     */
+    public int getMaxBufferSize() {
+        return maxBufferSize;
+    }
+    
+    /**
+     * Returns the number of exchanges currently in flight.
+     *
+     * @return the number of in-flight exchanges
+     */
+    public int getInFlight() {
+        return flights.size();
+    }
+    
+    private HTTPResponse share(HTTPRequest request, Flight flight, HTTPResponse response) throws HTTPException {
+        int maxBufferSize = this.maxBufferSize;
+        try {
+            if (response.getHead().getContentLength() > maxBufferSize) {
+                flight.result.complete(null);
+                return response;
+            }
+            
+            InputStream in = response.getBody().getNoClose(HTTPBodyParser.INPUT_STREAM);
+            byte[] body = in.readNBytes(maxBufferSize + 1);
+            if (body.length > maxBufferSize) {
+                flight.result.complete(null);
+                return new Shared(response, null).createResponse(request, HTTPBody.of(HTTPBodyParser.INPUT_STREAM, new SequenceInputStream(new ByteArrayInputStream(body), in)));
+            }
+            in.close();
+            
+            Shared shared = new Shared(response, body);
+            flight.result.complete(shared);
+            return shared.createResponse(request, HTTPBody.of(body));
+        } catch (IOException e) {
+            HTTPException error = new HTTPException(e);
+            flight.result.completeExceptionally(error);
+            throw error;
+        } catch (Throwable e) {
+            flight.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+    
+    private HTTPResponse join(HTTPRequest request, CompletableFuture<Shared> flight, TFunc<HTTPResponse, HTTPException> exchange) throws HTTPException {
+        Shared shared;
+        try {
+            shared = flight.get();
+        } catch (InterruptedException e) {
+            throw new HTTPException(e);
+        } catch (ExecutionException e) {
+            throw new HTTPException("Shared exchange failed!", e.getCause());
+        }
+        // the body was too large to share
+        if (shared == null) return exchange.invoke();
+        
+        return shared.createResponse(request, HTTPBody.of(shared.body));
+    }
+    
+    private String getKey(HTTPRequest request) {
+        StringBuilder key = new StringBuilder()
+                .append(request.getMethod().name())
+                .append(' ')
+                .append(request.getURI())
+                // the body of a waiter must be decoded the way it asked for
+                .append(request.isCompression() ? " compressed" : "");
+        
+        for (String header : keyHeaders) {
+            List<String> values = request.getHead().getAll(header);
+            key.append('\n').append(header).append(": ");
+            if (values != null) key.append(String.join(", ", values));
+        }
+        return key.toString();
+    }
+    
+    private static class Flight {
+        
+        private final CompletableFuture<Shared> result = new CompletableFuture<>();
+        private int waiters;
+        private boolean closed;
+        
+        private synchronized boolean join() {
+            if (closed) return false;
+            
+            waiters++;
+            return true;
+        }
+        
+        private synchronized int close() {
+            closed = true;
+            return waiters;
+        }
+    }
+    
+    private static class Shared {
+        
+        private final HTTPResponse response;
+        private final byte[] body;
+        
+        private Shared(HTTPResponse response, byte[] body) {
+            this.response = response;
+            this.body = body;
+        }
+        
+        private HTTPResponse createResponse(HTTPRequest request, HTTPBody body) {
+            return new HTTPResponse(
+                    response.getHTTP(),
+                    request,
+                    response.getURI(),
+                    response.getStatus(),
+                    response.getHead(),
+                    body,
+                    response.getDecoder()
+                    );
+        }
+    }
+}
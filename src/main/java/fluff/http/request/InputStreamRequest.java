@@ -1,5 +1,6 @@
 package fluff.http.request;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.http.HttpRequest;
 
@@ -7,4 +8,22 @@ public class InputStreamRequest {
 	
 	public HttpRequest request;
 	public InputStream inputStream;
+	
+	/**
+	 * Closes the request body stream, if it was opened.
+	 *
+	 * @throws IOException if an I/O error occurs
+	 */
+	public void close() throws IOException {
+		if (inputStream != null) inputStream.close();
+	}
+	
+	/**
+	 * Closes the request body stream, if it was opened, ignoring any I/O error.
+	 */
+	public void closeQuietly() {
+		try {
+			close();
+		} catch (IOException e) {}
+	}
 }
@@ -1,10 +1,17 @@
 package fluff.http.response;
 
 import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
 
 import fluff.http.HTTP;
+import fluff.http.HTTPException;
+import fluff.http.body.DecodingInputStream;
 import fluff.http.body.HTTPBody;
+import fluff.http.body.HTTPBodyParser;
 import fluff.http.head.HTTPHead;
+import fluff.http.head.HTTPHeader;
+import fluff.http.head.value.values.MediaType;
 import fluff.http.request.HTTPRequest;
 
 /**
@@ -18,6 +25,7 @@ public class HTTPResponse {
     private final HTTPResponseStatus status;
     private final HTTPHead head;
     private final HTTPBody body;
+    private final DecodingInputStream decoder;
     
     /**
      * Constructs an HTTPResponse instance with the specified details.
@@ -30,12 +38,28 @@ public class HTTPResponse {
      * @param body the HTTP body received in the response
      */
     public HTTPResponse(HTTP http, HTTPRequest request, URI uri, HTTPResponseStatus status, HTTPHead head, HTTPBody body) {
+        this(http, request, uri, status, head, body, null);
+    }
+    
+    /**
+     * Constructs an HTTPResponse instance with the specified details and a decoded body.
+     *
+     * @param http the HTTP client instance used for the request
+     * @param request the HTTP request that generated this response
+     * @param uri the URI of the request
+     * @param status the HTTP response status
+     * @param head the HTTP headers received in the response
+     * @param body the HTTP body received in the response
+     * @param decoder the stream decoding the body content, or null if the body is not decoded
+     */
+    public HTTPResponse(HTTP http, HTTPRequest request, URI uri, HTTPResponseStatus status, HTTPHead head, HTTPBody body, DecodingInputStream decoder) {
         this.http = http;
         this.request = request;
         this.uri = uri;
         this.status = status;
         this.head = head;
-        this.body = body;
+        this.body = withCharset(body, head);
+        this.decoder = decoder;
     }
     
     /**
@@ -91,4 +115,51 @@ public class HTTPResponse {
     public HTTPBody getBody() {
         return body;
     }
+    
+    /**
+     * Returns the stream decoding the HTTP body, which counts the encoded and decoded bytes read so far.
+     * <p>
+     * The head still describes the encoded content, e.g. its Content-Length.
+     *
+     * @return the decoder, or null if the body was not content-encoded or compression was disabled
+     */
+    public DecodingInputStream getDecoder() {
+        return decoder;
+    }
+    
+    /**
+     * Returns a copy of this response with the specified body, e.g. a body wrapped by an interceptor.
+     *
+     * @param body the new body
+     * @return a new HTTPResponse with the same details and the new body
+     */
+    public HTTPResponse withBody(HTTPBody body) {
+        return new HTTPResponse(http, request, uri, status, head, body, decoder);
+    }
+    
+    /**
+     * Transfers the HTTP body received in the response into the specified file, replacing its content.
+     *
+     * @param path the file to write to
+     * @return the path of the written file
+     * @throws HTTPException if an error occurs while writing the file
+     */
+    public Path saveTo(Path path) throws HTTPException {
+        return body.get(HTTPBodyParser.file(path));
+    }
+    
+    // lets text parsers decode the body with the charset of its Content-Type
+    private static HTTPBody withCharset(HTTPBody body, HTTPHead head) {
+        if (body == null || body.isEmpty() || body.getCharset() != null || head == null) return body;
+        
+        MediaType type;
+        try {
+            type = head.get(HTTPHeader.CONTENT_MEDIA_TYPE);
+        } catch (HTTPException e) {
+            return body;
+        }
+        
+        Charset charset = type != null ? type.getCharset() : null;
+        return charset != null ? body.withCharset(charset) : body;
+    }
 }
@@ -0,0 +1,62 @@
+package fluff.http.retry;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps retries to a fraction of the requests sent, so retries cannot multiply the load on a failing server.
+ * <p>
+ * Each request earns a fraction of a retry token and each retry spends a whole token.
+ * Tokens are saved up to a reserve, which starts full so retries are possible while traffic is low.
+ */
+public class HTTPRetryBudget {
+    
+    private static final long TOKEN = 1000;
+    
+    private final AtomicLong tokens;
+    private final long earned;
+    private final long max;
+    
+    /**
+     * Constructs a new HTTPRetryBudget.
+     *
+     * @param ratio the maximum number of retries per request, e.g. 0.1 for 10%
+     * @param reserve the maximum number of retries that can be saved up
+     */
+    public HTTPRetryBudget(double ratio, int reserve) {
+        if (ratio < 0) throw new IllegalArgumentException("Ratio must not be negative!");
+        
+        this.earned = Math.round(ratio * TOKEN);
+        this.max = Math.max(reserve, 1) * TOKEN;
+        this.tokens = new AtomicLong(max);
+    }
+    
+    /**
+     * Records a request, earning a fraction of a retry token.
+     */
+    public void onRequest() {
+        tokens.accumulateAndGet(earned, (current, add) -> Math.min(current + add, max));
+    }
+    
+    /**
+     * Attempts to spend a retry token.
+     *
+     * @return true if the retry is allowed, false if the budget is exhausted
+     */
+    public boolean tryRetry() {
+        long current;
+        do {
+            current = tokens.get();
+            if (current < TOKEN) return false;
+        } while (!tokens.compareAndSet(current, current - TOKEN));
+        return true;
+    }
+    
+    /**
+     * Returns the number of retries currently available.
+     *
+     * @return the available retries
+     */
+    public double getAvailable() {
+        return (double) tokens.get() / TOKEN;
+    }
+}
@@ -0,0 +1,262 @@
+package fluff.http.retry;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import fluff.functions.gen.TFunc;
+import fluff.http.HTTPException;
+import fluff.http.body.HTTPBodyParser;
+import fluff.http.request.HTTPRequest;
+import fluff.http.response.HTTPResponse;
+import fluff.http.response.HTTPResponseStatus;
+
+/**
+ * A policy retrying failed exchanges with exponential backoff and jitter.
+ * <p>
+ * An exchange is retried when it fails with an I/O error or answers with a retryable status.
+ * Only requests with an idempotent method and a repeatable body are retried, except for refused connections,
+ * which never reached the server. A Retry-After header extends the backoff delay, and a longer one than
+ * allowed stops the retries. An optional {@link HTTPRetryBudget} caps the retries across all requests.
+ */
+public class HTTPRetryPolicy {
+    
+    private int maxAttempts = 3;
+    private Duration baseDelay = Duration.ofMillis(100);
+    private Duration maxDelay = Duration.ofSeconds(10);
+    private double multiplier = 2;
+    private double jitter = 1;
+    private Duration maxRetryAfter = Duration.ofSeconds(60);
+    private Set<HTTPResponseStatus> retryableStatuses = EnumSet.of(
+            HTTPResponseStatus.TOO_MANY_REQUESTS,
+            HTTPResponseStatus.BAD_GATEWAY,
+            HTTPResponseStatus.SERVICE_UNAVAILABLE,
+            HTTPResponseStatus.GATEWAY_TIMEOUT);
+    private boolean retryNonIdempotent;
+    private HTTPRetryBudget budget;
+    
+    private final LongAdder retries = new LongAdder();
+    
+    /**
+     * Sends the request, retrying the exchange according to this policy.
+     *
+     * @param request the request to send
+     * @param exchange the function performing a single exchange
+     * @return the HTTP response of the last attempt
+     * @throws HTTPException if the last attempt failed
+     */
+    public HTTPResponse send(HTTPRequest request, TFunc<HTTPResponse, HTTPException> exchange) throws HTTPException {
+        if (budget != null) budget.onRequest();
+        
+        boolean replayable = request.getBody().isRepeatable();
+        boolean idempotent = retryNonIdempotent || request.getMethod().isIdempotent();
+        
+        for (int attempt = 1;; attempt++) {
+            HTTPResponse response;
+            try {
+                response = exchange.invoke();
+            } catch (HTTPException e) {
+                boolean retryable = replayable && e.getCause() instanceof IOException
+                        && (idempotent || e.getCause() instanceof ConnectException);
+                if (!retryable || attempt >= maxAttempts || !spend()) throw e;
+                
+                sleep(getDelay(attempt));
+                continue;
+            }
+            
+            if (!replayable || !idempotent || attempt >= maxAttempts || !retryableStatuses.contains(response.getStatus())) return response;
+            
+            long delay = getDelay(attempt);
+            long retryAfter = getRetryAfter(response.getHead().get("Retry-After"));
+            if (retryAfter > maxRetryAfter.toMillis()) return response;
+            if (!spend()) return response;
+            
+            discard(response);
+            sleep(Math.max(delay, retryAfter));
+        }
+    }
+    
+    /**
+     * Returns the delay before the specified retry, including jitter.
+     *
+     * @param attempt the number of the attempt that failed, starting at 1
+     * @return the delay in milliseconds
+     */
+    protected long getDelay(int attempt) {
+        double delay = baseDelay.toMillis() * Math.pow(multiplier, attempt - 1);
+        long capped = (long) Math.min(delay, maxDelay.toMillis());
+        
+        return capped - (long) (capped * jitter * ThreadLocalRandom.current().nextDouble());
+    }
+    
+    private boolean spend() {
+        if (budget != null && !budget.tryRetry()) return false;
+        
+        retries.increment();
+        return true;
+    }
+    
+    /**
+     * Returns the total number of retries performed by this policy.
+     *
+     * @return the number of retries
+     */
+    public long getRetries() {
+        return retries.sum();
+    }
+    
+    /**
+     * Returns the maximum number of attempts, including the first one.
+     *
+     * @return the maximum number of attempts
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+    
+    /**
+     * Sets the maximum number of attempts, including the first one.
+     *
+     * @param maxAttempts the maximum number of attempts
+     * @return this HTTPRetryPolicy instance
+     */
+    public HTTPRetryPolicy setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+    
+    /**
+     * Sets the delay before the first retry, multiplied for each following retry.
+     *
+     * @param baseDelay the base delay
+     * @return this HTTPRetryPolicy instance
+     */
+    public HTTPRetryPolicy setBaseDelay(Duration baseDelay) {
+        this.baseDelay = baseDelay;
+        return this;
+    }
+    
+    /**
+     * Sets the maximum backoff delay, before jitter.
+     *
+     * @param maxDelay the maximum delay
+     * @return this HTTPRetryPolicy instance
+     */
+    public HTTPRetryPolicy setMaxDelay(Duration maxDelay) {
+        this.maxDelay = maxDelay;
+        return this;
+    }
+    
+    /**
+     * Sets the factor the delay grows by after each retry.
+     *
+     * @param multiplier the delay multiplier
+     * @return this HTTPRetryPolicy instance
+     */
+    public HTTPRetryPolicy setMultiplier(double multiplier) {
+        this.multiplier = multiplier;
+        return this;
+    }
+    
+    /**
+     * Sets the fraction of the delay that is randomized, from 0 for none to 1 for full jitter.
+     *
+     * @param jitter the jitter fraction
+     * @return this HTTPRetryPolicy instance
+     */
+    public HTTPRetryPolicy setJitter(double jitter) {
+        this.jitter = Math.max(0, Math.min(jitter, 1));
+        return this;
+    }
+    
+    /**
+     * Sets the longest Retry-After delay that is waited for before retrying.
+     *
+     * @param maxRetryAfter the maximum Retry-After delay
+     * @return this HTTPRetryPolicy instance
+     */
+    public HTTPRetryPolicy setMaxRetryAfter(Duration maxRetryAfter) {
+        this.maxRetryAfter = maxRetryAfter;
+        return this;
+    }
+    
+    /**
+     * Sets the response statuses that cause a retry.
+     *
+     * @param retryableStatuses the retryable statuses
+     * @return this HTTPRetryPolicy instance
+     */
+    public HTTPRetryPolicy setRetryableStatuses(Set<HTTPResponseStatus> retryableStatuses) {
+        this.retryableStatuses = EnumSet.copyOf(retryableStatuses);
+        return this;
+    }
+    
+    /**
+     * Sets whether requests with a non-idempotent method are retried too.
+     *
+     * @param retryNonIdempotent true to retry all methods, false to retry idempotent methods only
+     * @return this HTTPRetryPolicy instance
+     */
+    public HTTPRetryPolicy setRetryNonIdempotent(boolean retryNonIdempotent) {
+        this.retryNonIdempotent = retryNonIdempotent;
+        return this;
+    }
+    
+    /**
+     * Returns the budget capping the retries of this policy.
+     *
+     * @return the retry budget, or null if retries are not capped
+     */
+    public HTTPRetryBudget getBudget() {
+        return budget;
+    }
+    
+    /**
+     * Sets the budget capping the retries of this policy.
+     *
+     * @param budget the retry budget, or null to not cap retries
+     * @return this HTTPRetryPolicy instance
+     */
+    public HTTPRetryPolicy setBudget(HTTPRetryBudget budget) {
+        this.budget = budget;
+        return this;
+    }
+    
+    private static long getRetryAfter(String value) {
+        if (value == null) return 0;
+        
+        try {
+            return Math.max(Long.parseLong(value.trim()), 0) * 1000;
+        } catch (NumberFormatException e) {}
+        
+        try {
+            long date = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            return Math.max(date - System.currentTimeMillis(), 0);
+        } catch (DateTimeParseException e) {
+            return 0;
+        }
+    }
+    
+    private static void sleep(long millis) throws HTTPException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HTTPException(e);
+        }
+    }
+    
+    private static void discard(HTTPResponse response) {
+        try {
+            // the stream is closed once parsed
+            response.getBody().get(HTTPBodyParser.INPUT_STREAM);
+        } catch (HTTPException e) {}
+    }
+}
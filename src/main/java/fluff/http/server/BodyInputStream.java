@@ -0,0 +1,55 @@
+package fluff.http.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A request body stream reading from a connection, which must not read past the end of the body
+ * so the next pipelined request stays in the connection buffer.
+ */
+abstract class BodyInputStream extends InputStream {
+    
+    protected final InputStream in;
+    private boolean closed;
+    
+    BodyInputStream(InputStream in) {
+        this.in = in;
+    }
+    
+    /**
+     * Reads body bytes, returning -1 at the end of the body.
+     */
+    protected abstract int readBody(byte[] b, int off, int len) throws IOException;
+    
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+    }
+    
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (closed) throw new IOException("Stream closed");
+        if (len == 0) return 0;
+        
+        return readBody(b, off, len);
+    }
+    
+    /**
+     * Closes the body without closing the connection.
+     */
+    @Override
+    public void close() {
+        closed = true;
+    }
+    
+    /**
+     * Skips the rest of the body, even if it was closed.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    void drain() throws IOException {
+        byte[] buffer = new byte[8192];
+        while (readBody(buffer, 0, buffer.length) >= 0);
+    }
+}
@@ -0,0 +1,68 @@
+package fluff.http.server;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A request body sent with the chunked transfer coding.
+ */
+class ChunkedInputStream extends BodyInputStream {
+    
+    private long remaining;
+    private boolean eof;
+    
+    ChunkedInputStream(InputStream in) {
+        super(in);
+    }
+    
+    @Override
+    protected int readBody(byte[] b, int off, int len) throws IOException {
+        if (eof) return -1;
+        
+        if (remaining == 0) {
+            remaining = readChunkSize();
+            if (remaining == 0) {
+                // the trailer section ends with an empty line
+                while (!HTTPServerConnection.requireLine(in, HTTPServerConnection.MAX_LINE).isEmpty());
+                eof = true;
+                return -1;
+            }
+        }
+        
+        int n = in.read(b, off, (int) Math.min(len, remaining));
+        if (n < 0) throw new EOFException("Connection closed before the end of the body");
+        
+        remaining -= n;
+        if (remaining == 0 && !HTTPServerConnection.requireLine(in, 2).isEmpty()) throw new IOException("Malformed chunk");
+        return n;
+    }
+    
+    private long readChunkSize() throws IOException {
+        String line = HTTPServerConnection.requireLine(in, HTTPServerConnection.MAX_LINE);
+        int end = line.indexOf(';');
+        if (end >= 0) {
+            // only the whitespace allowed before an extension is skipped
+            while (end > 0 && (line.charAt(end - 1) == ' ' || line.charAt(end - 1) == '\t')) end--;
+        } else {
+            end = line.length();
+        }
+        
+        // 1 to 16 hex digits, no sign or whitespace that Long.parseLong would accept
+        if (end == 0 || end > 16) throw new IOException("Malformed chunk size: " + line);
+        
+        long size = 0;
+        for (int i = 0; i < end; i++) {
+            char c = line.charAt(i);
+            int digit;
+            if (c >= '0' && c <= '9') digit = c - '0';
+            else if (c >= 'a' && c <= 'f') digit = c - 'a' + 10;
+            else if (c >= 'A' && c <= 'F') digit = c - 'A' + 10;
+            else throw new IOException("Malformed chunk size: " + line);
+            
+            size = size << 4 | digit;
+        }
+        if (size < 0) throw new IOException("Chunk size too large: " + line);
+        return size;
+    }
+}
@@ -0,0 +1,47 @@
+package fluff.http.server;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes a response body with the chunked transfer coding, one chunk per write.
+ */
+class ChunkedOutputStream extends FilterOutputStream {
+    
+    private static final byte[] CRLF = { '\r', '\n' };
+    private static final byte[] LAST_CHUNK = { '0', '\r', '\n', '\r', '\n' };
+    
+    private boolean closed;
+    
+    ChunkedOutputStream(OutputStream out) {
+        super(out);
+    }
+    
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+    
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (len == 0) return;
+        
+        out.write(Integer.toHexString(len).getBytes(StandardCharsets.US_ASCII));
+        out.write(CRLF);
+        out.write(b, off, len);
+        out.write(CRLF);
+    }
+    
+    /**
+     * Writes the last chunk without closing the connection.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        
+        closed = true;
+        out.write(LAST_CHUNK);
+    }
+}
@@ -0,0 +1,40 @@
+package fluff.http.server;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A request body delimited by its Content-Length.
+ */
+class FixedLengthInputStream extends BodyInputStream {
+    
+    private final long length;
+    private long remaining;
+    
+    FixedLengthInputStream(InputStream in, long length) {
+        super(in);
+        this.length = length;
+        this.remaining = length;
+    }
+    
+    long getLength() {
+        return length;
+    }
+    
+    @Override
+    protected int readBody(byte[] b, int off, int len) throws IOException {
+        if (remaining == 0) return -1;
+        
+        int n = in.read(b, off, (int) Math.min(len, remaining));
+        if (n < 0) throw new EOFException("Connection closed before the end of the body");
+        
+        remaining -= n;
+        return n;
+    }
+    
+    @Override
+    public int available() throws IOException {
+        return (int) Math.min(in.available(), remaining);
+    }
+}
@@ -0,0 +1,245 @@
+package fluff.http.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import fluff.http.HTTP;
+import fluff.http.HTTPException;
+
+/**
+ * A lightweight HTTP/1.1 server, the counterpart of {@link HTTP} built on the same head, body and status types.
+ * <p>
+ * Each connection is served by its own thread, a virtual thread when the runtime supports it, with blocking I/O.
+ * Connections are kept alive and pipelined requests are answered in order. Request and response bodies are
+ * streamed in both directions, with the chunked transfer coding when their length is unknown.
+ */
+public class HTTPServer implements Closeable {
+    
+    private static final long MIN_ACCEPT_BACKOFF = 10;
+    private static final long MAX_ACCEPT_BACKOFF = 1000;
+    
+    private final HTTPServerHandler handler;
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    
+    private Executor executor;
+    private Duration idleTimeout = Duration.ofSeconds(30);
+    private int maxHeaderSize = 16 * 1024;
+    private int backlog = 128;
+    
+    private volatile ServerSocket serverSocket;
+    private ExecutorService ownedExecutor;
+    
+    /**
+     * Constructs a new HTTPServer with the specified handler.
+     *
+     * @param handler the handler of the requests
+     */
+    public HTTPServer(HTTPServerHandler handler) {
+        this.handler = handler;
+    }
+    
+    /**
+     * Starts listening on the specified port of all interfaces.
+     *
+     * @param port the port, or 0 for any free port
+     * @return this HTTPServer instance
+     * @throws HTTPException if the server cannot listen on the port
+     */
+    public HTTPServer start(int port) throws HTTPException {
+        return start(new InetSocketAddress(port));
+    }
+    
+    /**
+     * Starts listening on the specified address.
+     *
+     * @param address the address, with port 0 for any free port
+     * @return this HTTPServer instance
+     * @throws HTTPException if the server cannot listen on the address or is already started
+     */
+    public synchronized HTTPServer start(InetSocketAddress address) throws HTTPException {
+        if (serverSocket != null) throw new HTTPException("Server already started!");
+        
+        try {
+            ServerSocket serverSocket = new ServerSocket();
+            serverSocket.setReuseAddress(true);
+            serverSocket.bind(address, backlog);
+            this.serverSocket = serverSocket;
+        } catch (IOException e) {
+            throw new HTTPException(e);
+        }
+        
+        if (executor == null) {
+            try {
+                ownedExecutor = HTTP.newVirtualThreadExecutor();
+            } catch (HTTPException e) {
+                ownedExecutor = Executors.newCachedThreadPool();
+            }
+        }
+        
+        Thread acceptor = new Thread(this::accept, "HTTPServer-" + getPort());
+        acceptor.start();
+        return this;
+    }
+    
+    private void accept() {
+        ServerSocket serverSocket = this.serverSocket;
+        Executor executor = this.executor != null ? this.executor : ownedExecutor;
+        
+        long backoff = 0;
+        while (!serverSocket.isClosed()) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+                backoff = 0;
+            } catch (IOException e) {
+                // closed by close()
+                if (serverSocket.isClosed()) break;
+                
+                // e.g. out of file descriptors, retrying at once would only spin
+                backoff = Math.min(Math.max(backoff * 2, MIN_ACCEPT_BACKOFF), MAX_ACCEPT_BACKOFF);
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException e1) {
+                    break;
+                }
+                continue;
+            }
+            
+            connections.add(socket);
+            try {
+                executor.execute(new HTTPServerConnection(this, socket));
+            } catch (RejectedExecutionException e) {
+                onClosed(socket);
+                try {
+                    socket.close();
+                } catch (IOException e1) {}
+            }
+        }
+    }
+    
+    void onClosed(Socket socket) {
+        connections.remove(socket);
+    }
+    
+    /**
+     * Stops the server, closing its listening socket and all its connections.
+     */
+    @Override
+    public synchronized void close() {
+        if (serverSocket == null) return;
+        
+        try {
+            serverSocket.close();
+        } catch (IOException e) {}
+        
+        for (Socket socket : connections) {
+            try {
+                socket.close();
+            } catch (IOException e) {}
+        }
+        
+        if (ownedExecutor != null) ownedExecutor.shutdownNow();
+        ownedExecutor = null;
+        serverSocket = null;
+    }
+    
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return the local port, or -1 if the server is not started
+     */
+    public int getPort() {
+        ServerSocket serverSocket = this.serverSocket;
+        return serverSocket != null ? serverSocket.getLocalPort() : -1;
+    }
+    
+    /**
+     * Returns the number of open connections.
+     *
+     * @return the number of connections
+     */
+    public int getConnections() {
+        return connections.size();
+    }
+    
+    /**
+     * Returns the handler of the requests.
+     *
+     * @return the handler
+     */
+    public HTTPServerHandler getHandler() {
+        return handler;
+    }
+    
+    /**
+     * Sets the executor serving the connections, one task per connection, instead of a virtual thread per connection when supported.
+     *
+     * @param executor the executor, or null for the default one
+     * @return this HTTPServer instance
+     */
+    public HTTPServer setExecutor(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+    
+    /**
+     * Returns how long a connection may stay idle before being closed.
+     *
+     * @return the idle timeout
+     */
+    public Duration getIdleTimeout() {
+        return idleTimeout;
+    }
+    
+    /**
+     * Sets how long a connection may stay idle, or take to send a request, before being closed.
+     *
+     * @param idleTimeout the idle timeout
+     * @return this HTTPServer instance
+     */
+    public HTTPServer setIdleTimeout(Duration idleTimeout) {
+        this.idleTimeout = idleTimeout;
+        return this;
+    }
+    
+    /**
+     * Returns the maximum total size of the headers of a request.
+     *
+     * @return the maximum header size in bytes
+     */
+    public int getMaxHeaderSize() {
+        return maxHeaderSize;
+    }
+    
+    /**
+     * Sets the maximum total size of the headers of a request, larger requests are rejected.
+     *
+     * @param maxHeaderSize the maximum header size in bytes
+     * @return this HTTPServer instance
+     */
+    public HTTPServer setMaxHeaderSize(int maxHeaderSize) {
+        this.maxHeaderSize = maxHeaderSize;
+        return this;
+    }
+    
+    /**
+     * Sets the maximum number of pending connections waiting to be accepted.
+     *
+     * @param backlog the backlog
+     * @return this HTTPServer instance
+     */
+    public HTTPServer setBacklog(int backlog) {
+        this.backlog = backlog;
+        return this;
+    }
+}
@@ -0,0 +1,277 @@
+package fluff.http.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import fluff.http.body.HTTPBody;
+import fluff.http.body.HTTPBodyParser;
+import fluff.http.head.HTTPHead;
+import fluff.http.head.HTTPHeader;
+import fluff.http.head.value.parsers.HTTPHeaderReader;
+import fluff.http.response.HTTPResponseStatus;
+
+/**
+ * Serves the requests of a single connection, one after the other.
+ * <p>
+ * Requests are parsed from a buffered stream and their bodies never read past their end, so pipelined requests
+ * wait in the buffer. Responses are flushed only when the connection is about to wait for more input,
+ * which answers a batch of pipelined requests with as few writes as possible.
+ */
+class HTTPServerConnection implements Runnable {
+    
+    static final int MAX_LINE = 8192;
+    
+    private static final byte[] CONTINUE = "HTTP/1.1 100 Continue\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+    
+    private final HTTPServer server;
+    private final Socket socket;
+    
+    HTTPServerConnection(HTTPServer server, Socket socket) {
+        this.server = server;
+        this.socket = socket;
+    }
+    
+    @Override
+    public void run() {
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout((int) server.getIdleTimeout().toMillis());
+            
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream(), 8192);
+            InputStream in = new BufferedInputStream(new FilterInputStream(socket.getInputStream()) {
+                
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    // about to block on the socket, nothing buffered may wait for the client
+                    out.flush();
+                    return super.read(b, off, len);
+                }
+            }, 8192);
+            
+            try {
+                while (serve(in, out));
+            } catch (ProtocolException e) {
+                writeError(out, e.status);
+            }
+            out.flush();
+        } catch (SocketTimeoutException | EOFException e) {
+            // idle or half-sent request, nothing to answer
+        } catch (IOException e) {
+            // the client went away
+        } finally {
+            server.onClosed(socket);
+        }
+    }
+    
+    private boolean serve(InputStream in, OutputStream out) throws IOException {
+        String requestLine = readLine(in, MAX_LINE);
+        while (requestLine != null && requestLine.isEmpty()) {
+            requestLine = readLine(in, MAX_LINE);
+        }
+        if (requestLine == null) return false;
+        
+        String[] parts = requestLine.split(" ");
+        if (parts.length != 3) throw new ProtocolException(HTTPResponseStatus.BAD_REQUEST);
+        
+        String method = parts[0];
+        String target = parts[1];
+        String version = parts[2];
+        if (!version.equals("HTTP/1.1") && !version.equals("HTTP/1.0")) throw new ProtocolException(HTTPResponseStatus.HTTP_VERSION_NOT_SUPPORTED);
+        
+        HTTPHead head = HTTPHead.of(readHeaders(in));
+        
+        BodyInputStream body = readBody(in, head);
+        if (body != null && "100-continue".equalsIgnoreCase(head.get("Expect"))) out.write(CONTINUE);
+        
+        String connection = head.get("Connection");
+        boolean keepAlive = version.equals("HTTP/1.1")
+                ? connection == null || !hasToken(connection, "close")
+                : connection != null && hasToken(connection, "keep-alive");
+        
+        long length = body instanceof FixedLengthInputStream fixed ? fixed.getLength() : -1;
+        HTTPServerRequest request = new HTTPServerRequest(method, target, version, head,
+                body != null ? HTTPBody.of(() -> body, length, false) : HTTPBody.of(InputStream::nullInputStream, 0, true),
+                (InetSocketAddress) socket.getRemoteSocketAddress());
+        
+        HTTPServerResponse response;
+        try {
+            response = server.getHandler().handle(request);
+            if (response == null) throw new IllegalStateException("Handler returned no response");
+        } catch (Exception e) {
+            response = HTTPServerResponse.of(HTTPResponseStatus.INTERNAL_SERVER_ERROR);
+            keepAlive = false;
+        }
+        
+        keepAlive = writeResponse(out, response, method.equals("HEAD"), version, keepAlive);
+        if (keepAlive && body != null) body.drain();
+        return keepAlive;
+    }
+    
+    private Map<String, List<String>> readHeaders(InputStream in) throws IOException {
+        Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        int size = 0;
+        
+        while (true) {
+            String line = requireLine(in, MAX_LINE);
+            if (line.isEmpty()) return headers;
+            
+            size += line.length();
+            if (size > server.getMaxHeaderSize()) throw new ProtocolException(HTTPResponseStatus.REQUEST_HEADER_FIELDS_TOO_LARGE);
+            
+            int colon = line.indexOf(':');
+            if (colon <= 0) throw new ProtocolException(HTTPResponseStatus.BAD_REQUEST);
+            // the name must be a token, which rejects obsolete line folding and whitespace before the colon, both enable request smuggling
+            for (int i = 0; i < colon; i++) {
+                if (!HTTPHeaderReader.isTokenChar(line.charAt(i))) throw new ProtocolException(HTTPResponseStatus.BAD_REQUEST);
+            }
+            
+            headers.computeIfAbsent(line.substring(0, colon), k -> new ArrayList<>(1)).add(line.substring(colon + 1).trim());
+        }
+    }
+    
+    private BodyInputStream readBody(InputStream in, HTTPHead head) throws IOException {
+        String transferEncoding = head.get("Transfer-Encoding");
+        List<String> contentLength = head.getAll("Content-Length");
+        
+        if (transferEncoding != null) {
+            if (contentLength != null || !transferEncoding.trim().equalsIgnoreCase("chunked")) throw new ProtocolException(HTTPResponseStatus.BAD_REQUEST);
+            return new ChunkedInputStream(in);
+        }
+        if (contentLength == null) return null;
+        if (contentLength.size() != 1) throw new ProtocolException(HTTPResponseStatus.BAD_REQUEST);
+        
+        long length;
+        try {
+            length = Long.parseLong(contentLength.get(0).trim());
+        } catch (NumberFormatException e) {
+            throw new ProtocolException(HTTPResponseStatus.BAD_REQUEST);
+        }
+        if (length < 0) throw new ProtocolException(HTTPResponseStatus.BAD_REQUEST);
+        return length > 0 ? new FixedLengthInputStream(in, length) : null;
+    }
+    
+    private boolean writeResponse(OutputStream out, HTTPServerResponse response, boolean head, String version, boolean keepAlive) throws IOException {
+        HTTPResponseStatus status = response.getStatus();
+        HTTPBody body = response.getBody();
+        
+        int code = status.getCode();
+        boolean bodyless = head || code / 100 == 1 || code == 204 || code == 304;
+        boolean chunked = !body.isEmpty() && !body.hasLength();
+        
+        // an HTTP/1.0 client only knows the end of a body of unknown length once the connection closes
+        if (chunked && version.equals("HTTP/1.0") && !bodyless) keepAlive = false;
+        
+        StringBuilder sb = new StringBuilder(256)
+                .append("HTTP/1.1 ").append(code).append(' ').append(status.getMessage()).append("\r\n");
+        
+        for (Map.Entry<String, List<String>> e : response.getHead().getHeaders().entrySet()) {
+            String name = e.getKey();
+            if (name.equalsIgnoreCase("Content-Length") || name.equalsIgnoreCase("Transfer-Encoding") || name.equalsIgnoreCase("Connection")) continue;
+            
+            for (String value : e.getValue()) {
+                sb.append(name).append(": ").append(value).append("\r\n");
+            }
+        }
+        if (body.getEncoding() != null) sb.append(HTTPHeader.CONTENT_ENCODING.getName()).append(": ").append(body.getEncoding().getHTTPHeaderValue()).append("\r\n");
+        
+        if (code / 100 != 1 && code != 204) {
+            if (!chunked) sb.append("Content-Length: ").append(body.isEmpty() ? 0 : body.getLength()).append("\r\n");
+            else if (version.equals("HTTP/1.1")) sb.append("Transfer-Encoding: chunked\r\n");
+        }
+        if (!keepAlive) sb.append("Connection: close\r\n");
+        else if (version.equals("HTTP/1.0")) sb.append("Connection: keep-alive\r\n");
+        
+        out.write(sb.append("\r\n").toString().getBytes(StandardCharsets.ISO_8859_1));
+        if (bodyless || body.isEmpty()) return keepAlive;
+        
+        try (InputStream content = body.getNoClose(HTTPBodyParser.INPUT_STREAM)) {
+            if (chunked && version.equals("HTTP/1.1")) {
+                try (OutputStream chunks = new ChunkedOutputStream(out)) {
+                    content.transferTo(chunks);
+                }
+            } else {
+                content.transferTo(out);
+            }
+        }
+        return keepAlive;
+    }
+    
+    private void writeError(OutputStream out, HTTPResponseStatus status) throws IOException {
+        out.write(("HTTP/1.1 " + status.getCode() + " " + status.getMessage() + "\r\nContent-Length: 0\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+    }
+    
+    private static boolean hasToken(String value, String token) {
+        for (String part : value.split(",")) {
+            if (part.trim().equalsIgnoreCase(token)) return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Reads a line ending with LF, without its CRLF or LF.
+     *
+     * @param in the stream to read from
+     * @param limit the maximum length of the line
+     * @return the line, or null if the stream ended before the line started
+     * @throws IOException if the line is too long or the stream ends within the line
+     */
+    static String readLine(InputStream in, int limit) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0) {
+                if (sb.length() == 0) return null;
+                throw new EOFException();
+            }
+            if (sb.length() >= limit) throw new ProtocolException(HTTPResponseStatus.REQUEST_HEADER_FIELDS_TOO_LARGE);
+            
+            sb.append((char) b);
+        }
+        
+        int length = sb.length();
+        if (length > 0 && sb.charAt(length - 1) == '\r') sb.setLength(length - 1);
+        return sb.toString();
+    }
+    
+    /**
+     * Reads a line that must be present, see {@link #readLine(InputStream, int)}.
+     *
+     * @param in the stream to read from
+     * @param limit the maximum length of the line
+     * @return the line
+     * @throws IOException if the line is too long or the stream ends before the end of the line
+     */
+    static String requireLine(InputStream in, int limit) throws IOException {
+        String line = readLine(in, limit);
+        if (line == null) throw new EOFException();
+        return line;
+    }
+    
+    /**
+     * Thrown for requests that cannot be served, answered with the status and the connection closed.
+     */
+    static class ProtocolException extends IOException {
+        
+        private static final long serialVersionUID = 4410627125512318095L;
+        
+        final HTTPResponseStatus status;
+        
+        ProtocolException(HTTPResponseStatus status) {
+            super(status.getMessage());
+            this.status = status;
+        }
+    }
+}
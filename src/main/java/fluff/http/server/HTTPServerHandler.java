@@ -0,0 +1,25 @@
+package fluff.http.server;
+
+import java.io.IOException;
+
+import fluff.http.HTTPException;
+
+/**
+ * Handles the requests received by an {@link HTTPServer}.
+ * <p>
+ * A handler is called on the thread of the connection, one request at a time per connection,
+ * so it may block while reading the request body or producing the response.
+ */
+@FunctionalInterface
+public interface HTTPServerHandler {
+    
+    /**
+     * Handles a request.
+     *
+     * @param request the request
+     * @return the response to send
+     * @throws HTTPException if an error occurs while handling the request
+     * @throws IOException if an I/O error occurs while handling the request
+     */
+    HTTPServerResponse handle(HTTPServerRequest request) throws HTTPException, IOException;
+}
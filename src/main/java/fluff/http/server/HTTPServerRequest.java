@@ -0,0 +1,139 @@
+package fluff.http.server;
+
+import java.net.InetSocketAddress;
+
+import fluff.http.body.HTTPBody;
+import fluff.http.head.HTTPHead;
+import fluff.http.path.URLPath;
+import fluff.http.request.HTTPRequestMethod;
+
+/**
+ * Represents an HTTP request received by an {@link HTTPServer}.
+ * <p>
+ * The body streams from the connection and can only be read once, while the request is being handled.
+ * Whatever the handler leaves unread is skipped before the next request of the connection.
+ */
+public class HTTPServerRequest {
+    
+    private final String method;
+    private final String target;
+    private final String version;
+    private final HTTPHead head;
+    private final HTTPBody body;
+    private final InetSocketAddress remoteAddress;
+    
+    /**
+     * Constructs a new HTTPServerRequest.
+     *
+     * @param method the method name
+     * @param target the request target, as sent
+     * @param version the protocol version, e.g. HTTP/1.1
+     * @param head the headers
+     * @param body the body
+     * @param remoteAddress the address of the client
+     */
+    public HTTPServerRequest(String method, String target, String version, HTTPHead head, HTTPBody body, InetSocketAddress remoteAddress) {
+        this.method = method;
+        this.target = target;
+        this.version = version;
+        this.head = head;
+        this.body = body;
+        this.remoteAddress = remoteAddress;
+    }
+    
+    /**
+     * Returns the method of the request.
+     *
+     * @return the method, or null if it is not one of {@link HTTPRequestMethod}
+     */
+    public HTTPRequestMethod getMethod() {
+        for (HTTPRequestMethod m : HTTPRequestMethod.values()) {
+            if (m.name().equals(method)) return m;
+        }
+        return null;
+    }
+    
+    /**
+     * Returns the method name of the request, e.g. HEAD or OPTIONS for methods outside {@link HTTPRequestMethod}.
+     *
+     * @return the method name
+     */
+    public String getMethodName() {
+        return method;
+    }
+    
+    /**
+     * Returns the request target as sent, including the query.
+     *
+     * @return the request target
+     */
+    public String getTarget() {
+        return target;
+    }
+    
+    /**
+     * Returns the path of the request target, without the query.
+     *
+     * @return the raw path
+     */
+    public String getPath() {
+        int query = target.indexOf('?');
+        return query < 0 ? target : target.substring(0, query);
+    }
+    
+    /**
+     * Returns the query of the request target.
+     *
+     * @return the raw query, or null if there is none
+     */
+    public String getQuery() {
+        int query = target.indexOf('?');
+        return query < 0 ? null : target.substring(query + 1);
+    }
+    
+    /**
+     * Returns the URL of the request, built from its Host header and path.
+     *
+     * @return the URLPath of the request
+     */
+    public URLPath getURLPath() {
+        String host = head.get("Host");
+        return URLPath.of("http://" + (host != null ? host : "localhost") + getPath());
+    }
+    
+    /**
+     * Returns the protocol version of the request.
+     *
+     * @return the version, e.g. HTTP/1.1
+     */
+    public String getVersion() {
+        return version;
+    }
+    
+    /**
+     * Returns the headers of the request.
+     *
+     * @return the HTTP head
+     */
+    public HTTPHead getHead() {
+        return head;
+    }
+    
+    /**
+     * Returns the body of the request.
+     *
+     * @return the HTTP body
+     */
+    public HTTPBody getBody() {
+        return body;
+    }
+    
+    /**
+     * Returns the address of the client.
+     *
+     * @return the remote address
+     */
+    public InetSocketAddress getRemoteAddress() {
+        return remoteAddress;
+    }
+}
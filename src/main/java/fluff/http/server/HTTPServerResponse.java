@@ -0,0 +1,108 @@
+package fluff.http.server;
+
+import fluff.http.body.HTTPBody;
+import fluff.http.head.HTTPHead;
+import fluff.http.response.HTTPResponseStatus;
+
+/**
+ * Represents an HTTP response sent by an {@link HTTPServer}.
+ * <p>
+ * Bodies of known length are sent with a Content-Length header, others are streamed in chunks.
+ * The framing headers Content-Length, Transfer-Encoding and Connection are managed by the server.
+ */
+public class HTTPServerResponse {
+    
+    private HTTPResponseStatus status;
+    private HTTPHead head = HTTPHead.of();
+    private HTTPBody body = HTTPBody.of();
+    
+    /**
+     * Constructs a new HTTPServerResponse with the specified status.
+     *
+     * @param status the response status
+     */
+    public HTTPServerResponse(HTTPResponseStatus status) {
+        this.status = status;
+    }
+    
+    /**
+     * Sets the status of the response.
+     *
+     * @param status the response status
+     * @return this HTTPServerResponse instance
+     */
+    public HTTPServerResponse setStatus(HTTPResponseStatus status) {
+        this.status = status;
+        return this;
+    }
+    
+    /**
+     * Sets the headers of the response.
+     *
+     * @param head the HTTP head
+     * @return this HTTPServerResponse instance
+     */
+    public HTTPServerResponse setHead(HTTPHead head) {
+        this.head = head;
+        return this;
+    }
+    
+    /**
+     * Sets the body of the response.
+     *
+     * @param body the HTTP body
+     * @return this HTTPServerResponse instance
+     */
+    public HTTPServerResponse setBody(HTTPBody body) {
+        this.body = body;
+        return this;
+    }
+    
+    /**
+     * Returns the status of the response.
+     *
+     * @return the response status
+     */
+    public HTTPResponseStatus getStatus() {
+        return status;
+    }
+    
+    /**
+     * Returns the headers of the response.
+     *
+     * @return the HTTP head
+     */
+    public HTTPHead getHead() {
+        return head;
+    }
+    
+    /**
+     * Returns the body of the response.
+     *
+     * @return the HTTP body
+     */
+    public HTTPBody getBody() {
+        return body;
+    }
+    
+    /**
+     * Creates a response with the specified status and no body.
+     *
+     * @param status the response status
+     * @return a new HTTPServerResponse
+     */
+    public static HTTPServerResponse of(HTTPResponseStatus status) {
+        return new HTTPServerResponse(status);
+    }
+    
+    /**
+     * Creates a response with the specified status and body.
+     *
+     * @param status the response status
+     * @param body the HTTP body
+     * @return a new HTTPServerResponse
+     */
+    public static HTTPServerResponse of(HTTPResponseStatus status, HTTPBody body) {
+        return new HTTPServerResponse(status).setBody(body);
+    }
+}